@@ -10,19 +10,27 @@ import com.iota.iri.network.UDPReceiver;
 import com.iota.iri.network.replicator.Replicator;
 import com.iota.iri.zmq.MessageQ;
 import com.iota.iri.service.TipsManager;
+import com.iota.iri.storage.DatabaseStatisticsPublisher;
 import com.iota.iri.storage.FileExportProvider;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.storage.ZmqPublishProvider;
+import com.iota.iri.storage.rocksDB.ReadReplicaProvider;
 import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
 import com.iota.iri.utils.Pair;
+import com.iota.iri.utils.ParallelTraversal;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by paul on 5/19/17.
@@ -30,9 +38,16 @@ import java.util.List;
 public class Iota {
     private static final Logger log = LoggerFactory.getLogger(Iota.class);
 
+    private static final int RESCAN_CHUNK_SIZE = 1000;
+    private static final long RESCAN_PROGRESS_INTERVAL = 100000;
+
     public final LedgerValidator ledgerValidator;
+    public final ParallelTraversal traversal;
     public final Milestone milestone;
     public final Tangle tangle;
+    // serves the read-only API commands that tolerate lagging by up to DB_READ_REPLICA_REFRESH, the same as tangle
+    // unless a read replica is configured
+    public final Tangle readTangle;
     public final TransactionValidator transactionValidator;
     public final TipsManager tipsManager;
     public final TransactionRequester transactionRequester;
@@ -43,6 +58,8 @@ public class Iota {
     public final Hash coordinator;
     public final TipsViewModel tipsViewModel;
     public final MessageQ messageQ;
+    public final DatabaseStatisticsPublisher databaseStatisticsPublisher;
+    public final TransactionArchiver transactionArchiver;
 
     public final boolean testnet;
     public final int maxPeers;
@@ -80,30 +97,46 @@ public class Iota {
         } else {
             coordinator = new Hash(Configuration.MAINNET_COORDINATOR_ADDRESS);
         }
-        tangle = new Tangle();
+        tangle = new Tangle(configuration.longNum(Configuration.DefaultConfSettings.TRANSACTION_CACHE_SIZE) * 1024,
+                configuration.integer(Configuration.DefaultConfSettings.DAG_INDEX_SIZE));
+        // the replica is refreshed wholesale, so it must not cache transactions or their flags
+        readTangle = configuration.booling(Configuration.DefaultConfSettings.DB_READ_REPLICA) ? new Tangle(0, 0) : tangle;
         messageQ = new MessageQ(configuration.integer(Configuration.DefaultConfSettings.ZMQ_PORT),
                 configuration.string(Configuration.DefaultConfSettings.ZMQ_IPC),
                 configuration.integer(Configuration.DefaultConfSettings.ZMQ_THREADS),
                 configuration.booling(Configuration.DefaultConfSettings.ZMQ_ENABLED)
                 );
+        databaseStatisticsPublisher = new DatabaseStatisticsPublisher(tangle, messageQ,
+                configuration.longNum(Configuration.DefaultConfSettings.DB_STATISTICS_INTERVAL));
         tipsViewModel = new TipsViewModel();
         transactionRequester = new TransactionRequester(tangle, messageQ);
         transactionValidator = new TransactionValidator(tangle, tipsViewModel, transactionRequester, messageQ,
                 snapshotTimestamp);
         milestone = new Milestone(tangle, coordinator, initialSnapshot, transactionValidator, testnet, messageQ,
                 numKeysMilestone, milestoneStartIndex, dontValidateMilestoneSig);
+        milestone.setPipelineDepth(configuration.integer(Configuration.DefaultConfSettings.MILESTONE_PIPELINE_DEPTH));
+        milestone.setValidationThreads(configuration.integer(Configuration.DefaultConfSettings.MILESTONE_VALIDATION_THREADS));
         node = new Node(configuration, tangle, transactionValidator, transactionRequester, tipsViewModel, milestone, messageQ);
         replicator = new Replicator(node, tcpPort, maxPeers, testnet, reqHashSize);
         udpReceiver = new UDPReceiver(udpPort, node, configuration.integer(Configuration.DefaultConfSettings.TRANSACTION_PACKET_SIZE));
+        traversal = new ParallelTraversal(configuration.integer(Configuration.DefaultConfSettings.TRAVERSAL_THREADS));
+        transactionValidator.setTraversal(traversal);
         ledgerValidator = new LedgerValidator(tangle, milestone, transactionRequester, messageQ);
+        ledgerValidator.setTraversal(traversal);
+        ledgerValidator.setLocalSnapshots(
+                Paths.get(configuration.string(Configuration.DefaultConfSettings.DB_PATH) + ".snapshot"),
+                configuration.integer(Configuration.DefaultConfSettings.LOCAL_SNAPSHOT_INTERVAL));
+        ledgerValidator.setUnconfirmedDiffCache(
+                configuration.longNum(Configuration.DefaultConfSettings.UNCONFIRMED_DIFF_CACHE_SIZE));
         tipsManager = new TipsManager(tangle, ledgerValidator, transactionValidator, tipsViewModel, milestone,
                 maxTipSearchDepth, messageQ, testnet, milestoneStartIndex);
+        transactionArchiver = new TransactionArchiver(tangle, milestone, milestoneStartIndex,
+                configuration.integer(Configuration.DefaultConfSettings.DB_ARCHIVE_DEPTH));
     }
 
     public void init() throws Exception {
         initializeTangle();
         tangle.init();
-
         if (configuration.booling(Configuration.DefaultConfSettings.RESCAN_DB)){
             rescan_db();
         }
@@ -114,6 +147,17 @@ public class Iota {
             tangle.clearColumn(com.iota.iri.model.StateDiff.class);
             tangle.clearMetadata(com.iota.iri.model.Transaction.class);
         }
+        // opened after the column families are cleared, so that the replica never serves the dropped ones
+        if (readTangle != tangle) {
+            readTangle.addPersistenceProvider(new ReadReplicaProvider(
+                    configuration.string(Configuration.DefaultConfSettings.DB_PATH),
+                    // RocksDB names its log after the database, the replica must not rotate the log of the node
+                    configuration.string(Configuration.DefaultConfSettings.DB_LOG_PATH) + "-replica",
+                    configuration.integer(Configuration.DefaultConfSettings.DB_CACHE_SIZE),
+                    columnFamilyProfiles(),
+                    configuration.longNum(Configuration.DefaultConfSettings.DB_READ_REPLICA_REFRESH)));
+            readTangle.init();
+        }
         milestone.init(SpongeFactory.Mode.CURLP27, ledgerValidator, revalidate);
         transactionValidator.init(testnet, configuration.integer(Configuration.DefaultConfSettings.MWM));
         tipsManager.init();
@@ -121,76 +165,76 @@ public class Iota {
         udpReceiver.init();
         replicator.init();
         node.init();
+        databaseStatisticsPublisher.init();
+        transactionArchiver.init();
     }
 
     private void rescan_db() throws Exception {
-        int counter = 0;
         //delete all Address , Bundle , Approvee & Tag
-        AddressViewModel add = AddressViewModel.first(tangle);
-        while (add != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Clearing cache: {} Addresses", counter);
-            }
-            AddressViewModel NextAdd = add.next(tangle);
-            add.delete(tangle);
-            add = NextAdd;
-        }
-        counter = 0;
-        BundleViewModel bn = BundleViewModel.first(tangle);
-        while (bn != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Clearing cache: {} Bundles", counter);
-            }
-            BundleViewModel NextBn = bn.next(tangle);
-            bn.delete(tangle);
-            bn = NextBn;
-        }
-        counter = 0;
-        ApproveeViewModel app = ApproveeViewModel.first(tangle);
-        while (app != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Clearing cache: {} Approvees", counter);
-            }
-            ApproveeViewModel NextApp = app.next(tangle);
-            app.delete(tangle);
-            app = NextApp;
-        }
-        counter = 0;
-        TagViewModel tag = TagViewModel.first(tangle);
-        while (tag != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Clearing cache: {} Tags", counter);
-            }
-            TagViewModel NextTag = tag.next(tangle);
-            tag.delete(tangle);
-            tag = NextTag;
-        }
+        log.info("Clearing Address, Bundle, Approvee and Tag indexes...");
+        tangle.clearColumn(com.iota.iri.model.Address.class);
+        tangle.clearColumn(com.iota.iri.model.Bundle.class);
+        tangle.clearColumn(com.iota.iri.model.Approvee.class);
+        tangle.clearColumn(com.iota.iri.model.Tag.class);
 
         //rescan all tx & refill the columns
-        TransactionViewModel tx = TransactionViewModel.first(tangle);
-        counter = 0;
-        while (tx != null) {
-            if (++counter % 10000 == 0) {
-                log.info("Rescanned {} Transactions", counter);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.currentTimeMillis();
+        AtomicLong counter = new AtomicLong();
+        tangle.scan(com.iota.iri.model.Transaction.class, Hash.class, threads, RESCAN_CHUNK_SIZE, chunk -> {
+            List<Pair<Indexable, Persistable>> saveBatch = new ArrayList<>(chunk.size() * 5);
+            for (Pair<Indexable, Persistable> transaction : chunk) {
+                TransactionViewModel tx = new TransactionViewModel((com.iota.iri.model.Transaction) transaction.hi,
+                        (Hash) transaction.low);
+                saveBatch.addAll(tx.getMetadataSaveBatch());
             }
-            List<Pair<Indexable, Persistable>> saveBatch = tx.getSaveBatch();
-            saveBatch.remove(5);
             tangle.saveBatch(saveBatch);
-            tx = tx.next(tangle);
-        }
+            long count = counter.addAndGet(chunk.size());
+            if (count / RESCAN_PROGRESS_INTERVAL != (count - chunk.size()) / RESCAN_PROGRESS_INTERVAL) {
+                log.info("Rescanned {} Transactions ({}/s)", count, rate(count, start));
+            }
+        });
+        log.info("Rescanned {} Transactions in {} s ({}/s)", counter.get(),
+                (System.currentTimeMillis() - start) / 1000, rate(counter.get(), start));
+    }
+
+    private static long rate(long count, long start) {
+        return count * 1000 / Math.max(1, System.currentTimeMillis() - start);
     }
 
     public void shutdown() throws Exception {
+        transactionArchiver.shutdown();
+        databaseStatisticsPublisher.shutdown();
         milestone.shutDown();
         tipsManager.shutdown();
         node.shutdown();
         udpReceiver.shutdown();
         replicator.shutdown();
         transactionValidator.shutdown();
+        traversal.shutdown();
+        if (readTangle != tangle) {
+            readTangle.shutdown();
+        }
         tangle.shutdown();
         messageQ.shutdown();
     }
 
+    private Map<String, String> columnFamilyProfiles() {
+        Map<String, String> profiles = new HashMap<>();
+        profiles.put("default", configuration.string(Configuration.DefaultConfSettings.DB_DEFAULT_PROFILE));
+        profiles.put("transaction", configuration.string(Configuration.DefaultConfSettings.DB_TRANSACTION_PROFILE));
+        profiles.put("transaction-metadata", configuration.string(Configuration.DefaultConfSettings.DB_TRANSACTION_METADATA_PROFILE));
+        profiles.put("transaction-flags", configuration.string(Configuration.DefaultConfSettings.DB_TRANSACTION_FLAGS_PROFILE));
+        profiles.put("transaction-archive", configuration.string(Configuration.DefaultConfSettings.DB_TRANSACTION_ARCHIVE_PROFILE));
+        profiles.put("milestone", configuration.string(Configuration.DefaultConfSettings.DB_MILESTONE_PROFILE));
+        profiles.put("stateDiff", configuration.string(Configuration.DefaultConfSettings.DB_STATE_DIFF_PROFILE));
+        profiles.put("address", configuration.string(Configuration.DefaultConfSettings.DB_ADDRESS_PROFILE));
+        profiles.put("approvee", configuration.string(Configuration.DefaultConfSettings.DB_APPROVEE_PROFILE));
+        profiles.put("bundle", configuration.string(Configuration.DefaultConfSettings.DB_BUNDLE_PROFILE));
+        profiles.put("tag", configuration.string(Configuration.DefaultConfSettings.DB_TAG_PROFILE));
+        return profiles;
+    }
+
     private void initializeTangle() {
         String dbPath = configuration.string(Configuration.DefaultConfSettings.DB_PATH);
         if (testnet) {
@@ -208,10 +252,18 @@ public class Iota {
         }
         switch (configuration.string(Configuration.DefaultConfSettings.MAIN_DB)) {
             case "rocksdb": {
-                tangle.addPersistenceProvider(new RocksDBPersistenceProvider(
+                RocksDBPersistenceProvider rocksDBPersistenceProvider = new RocksDBPersistenceProvider(
                         configuration.string(Configuration.DefaultConfSettings.DB_PATH),
                         configuration.string(Configuration.DefaultConfSettings.DB_LOG_PATH),
-                        configuration.integer(Configuration.DefaultConfSettings.DB_CACHE_SIZE)));
+                        configuration.integer(Configuration.DefaultConfSettings.DB_CACHE_SIZE),
+                        columnFamilyProfiles());
+                rocksDBPersistenceProvider.setGroupCommit(
+                        configuration.integer(Configuration.DefaultConfSettings.DB_GROUP_COMMIT_SIZE),
+                        configuration.longNum(Configuration.DefaultConfSettings.DB_GROUP_COMMIT_DELAY),
+                        configuration.booling(Configuration.DefaultConfSettings.DB_SYNC_WRITES));
+                rocksDBPersistenceProvider.setStatisticsEnabled(
+                        configuration.longNum(Configuration.DefaultConfSettings.DB_STATISTICS_INTERVAL) > 0);
+                tangle.addPersistenceProvider(rocksDBPersistenceProvider);
                 break;
             }
             default: {
@@ -3,12 +3,18 @@ package com.iota.iri;
 import com.iota.iri.controllers.*;
 import com.iota.iri.model.Hash;
 import com.iota.iri.network.TransactionRequester;
+import com.iota.iri.utils.ParallelTraversal;
 import com.iota.iri.zmq.MessageQ;
 import com.iota.iri.storage.Tangle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by paul on 4/15/17.
@@ -21,6 +27,10 @@ public class LedgerValidator {
     private final TransactionRequester transactionRequester;
     private final MessageQ messageQ;
     private volatile int numberOfConfirmedTransactions;
+    private Path localSnapshotFile;
+    private int localSnapshotInterval;
+    private UnconfirmedDiffCache unconfirmedDiffCache = new UnconfirmedDiffCache(0);
+    private ParallelTraversal traversal = new ParallelTraversal(1);
 
     public LedgerValidator(Tangle tangle, Milestone milestone, TransactionRequester transactionRequester, MessageQ messageQ) {
         this.tangle = tangle;
@@ -29,6 +39,34 @@ public class LedgerValidator {
         this.messageQ = messageQ;
     }
 
+    /**
+     * Makes the validator write a {@link LocalSnapshot} to {@code file} whenever the index of a newly applied milestone
+     * is a multiple of {@code interval}, and start from that file on {@link #init()}. Must be called before
+     * {@link #init()}.
+     *
+     * @param interval milestones between local snapshots, 0 or less writes none
+     */
+    public void setLocalSnapshots(Path file, int interval) {
+        this.localSnapshotFile = file;
+        this.localSnapshotInterval = interval;
+    }
+
+    /**
+     * Makes the walks through the past cone of a transaction visit large levels with {@code traversal}.
+     */
+    public void setTraversal(ParallelTraversal traversal) {
+        this.traversal = traversal;
+    }
+
+    /**
+     * Makes {@link #updateDiff} share the subtangle below each tip between calls until the next milestone is applied.
+     *
+     * @param capacity the number of hashes the cached subtangles may hold in total, 0 or less disables the cache
+     */
+    public void setUnconfirmedDiffCache(long capacity) {
+        this.unconfirmedDiffCache = new UnconfirmedDiffCache(capacity);
+    }
+
     /**
      * Returns a Map of Address and change in balance that can be used to build a new Snapshot state.
      * Under certain conditions, it will return null:
@@ -51,23 +89,39 @@ public class LedgerValidator {
      * @throws Exception
      */
     public Map<Hash,Long> getLatestDiff(final Set<Hash> visitedNonMilestoneSubtangleHashes, Hash tip, int latestSnapshotIndex, boolean milestone) throws Exception {
-        Map<Hash, Long> state = new HashMap<>();
-        int numberOfAnalyzedTransactions = 0;
-        Set<Hash> countedTx = new HashSet<>(Collections.singleton(Hash.NULL_HASH));
+        Map<Hash, List<UnconfirmedDiffCache.Change>> changes = new ConcurrentHashMap<>();
+        int numberOfAnalyzedTransactions = collectChanges(visitedNonMilestoneSubtangleHashes, tip, latestSnapshotIndex, milestone, changes);
+        if (numberOfAnalyzedTransactions < 0) {
+            return null;
+        }
 
-        visitedNonMilestoneSubtangleHashes.add(Hash.NULL_HASH);
+        log.debug("Analyzed transactions = " + numberOfAnalyzedTransactions);
+        if (tip == null) {
+            numberOfConfirmedTransactions = numberOfAnalyzedTransactions;
+        }
+        log.debug("Confirmed transactions = " + numberOfConfirmedTransactions);
+        return sumChanges(changes.values());
+    }
 
-        final Queue<Hash> nonAnalyzedTransactions = new LinkedList<>(Collections.singleton(tip));
-        Hash transactionPointer;
-        while ((transactionPointer = nonAnalyzedTransactions.poll()) != null) {
-            if (visitedNonMilestoneSubtangleHashes.add(transactionPointer)) {
+    /**
+     * Traverses the subtangle below {tip} like {@link #getLatestDiff}, collecting the value transactions of every valid
+     * bundle by the hash of its tail.
+     * @return the number of analyzed transactions, or -1 where {@link #getLatestDiff} returns null
+     */
+    private int collectChanges(final Set<Hash> visitedNonMilestoneSubtangleHashes, Hash tip, int latestSnapshotIndex, boolean milestone,
+                               final Map<Hash, List<UnconfirmedDiffCache.Change>> changes) throws Exception {
+        final AtomicInteger numberOfAnalyzedTransactions = new AtomicInteger();
 
-                final TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, transactionPointer);
+        visitedNonMilestoneSubtangleHashes.add(Hash.NULL_HASH);
+
+        boolean consistent = traversal.walk(tip == null ? Collections.emptyList() : Collections.singletonList(tip),
+                visitedNonMilestoneSubtangleHashes, (level, nonAnalyzedTransactions) -> {
+            for (final TransactionViewModel transactionViewModel : TransactionViewModel.fromHashes(tangle, level).values()) {
                 if (transactionViewModel.snapshotIndex() == 0 || transactionViewModel.snapshotIndex() > latestSnapshotIndex) {
-                    numberOfAnalyzedTransactions++;
+                    numberOfAnalyzedTransactions.incrementAndGet();
                     if (transactionViewModel.getType() == TransactionViewModel.PREFILLED_SLOT) {
                         transactionRequester.requestTransaction(transactionViewModel.getHash(), milestone);
-                        return null;
+                        return false;
 
                     } else {
 
@@ -95,37 +149,49 @@ public class LedgerValidator {
 
                                     validBundle = true;
 
+                                    final List<UnconfirmedDiffCache.Change> bundleChanges = new ArrayList<>();
                                     for (final TransactionViewModel bundleTransactionViewModel : bundleTransactionViewModels) {
 
-                                        if (bundleTransactionViewModel.value() != 0 && countedTx.add(bundleTransactionViewModel.getHash())) {
-
-                                            final Hash address = bundleTransactionViewModel.getAddressHash();
-                                            final Long value = state.get(address);
-                                            state.put(address, value == null ? bundleTransactionViewModel.value()
-                                                    : Math.addExact(value, bundleTransactionViewModel.value()));
+                                        if (bundleTransactionViewModel.value() != 0) {
+                                            bundleChanges.add(new UnconfirmedDiffCache.Change(bundleTransactionViewModel.getHash(),
+                                                    bundleTransactionViewModel.getAddressHash(), bundleTransactionViewModel.value()));
                                         }
                                     }
+                                    if (!bundleChanges.isEmpty()) {
+                                        changes.put(transactionViewModel.getHash(), bundleChanges);
+                                    }
 
                                     break;
                                 }
                             }
                             if (!validBundle) {
-                                return null;
+                                return false;
                             }
                         }
 
-                        nonAnalyzedTransactions.offer(transactionViewModel.getTrunkTransactionHash());
-                        nonAnalyzedTransactions.offer(transactionViewModel.getBranchTransactionHash());
+                        nonAnalyzedTransactions.add(transactionViewModel.getTrunkTransactionHash());
+                        nonAnalyzedTransactions.add(transactionViewModel.getBranchTransactionHash());
                     }
                 }
             }
-        }
+            return true;
+        });
+        return consistent ? numberOfAnalyzedTransactions.get() : -1;
+    }
 
-        log.debug("Analyzed transactions = " + numberOfAnalyzedTransactions);
-        if (tip == null) {
-            numberOfConfirmedTransactions = numberOfAnalyzedTransactions;
+    /**
+     * Sums the value transactions of {bundles} by address, counting each transaction once.
+     */
+    private static Map<Hash, Long> sumChanges(Collection<List<UnconfirmedDiffCache.Change>> bundles) {
+        Map<Hash, Long> state = new HashMap<>();
+        Set<Hash> countedTx = new HashSet<>(Collections.singleton(Hash.NULL_HASH));
+        for (List<UnconfirmedDiffCache.Change> bundle : bundles) {
+            for (UnconfirmedDiffCache.Change change : bundle) {
+                if (countedTx.add(change.transaction)) {
+                    state.merge(change.address, change.value, Math::addExact);
+                }
+            }
         }
-        log.debug("Confirmed transactions = " + numberOfConfirmedTransactions);
         return state;
     }
 
@@ -139,11 +205,8 @@ public class LedgerValidator {
      */
     private void updateSnapshotMilestone(Hash hash, int index) throws Exception {
         Set<Hash> visitedHashes = new HashSet<>();
-        final Queue<Hash> nonAnalyzedTransactions = new LinkedList<>(Collections.singleton(hash));
-        Hash hashPointer;
-        while ((hashPointer = nonAnalyzedTransactions.poll()) != null) {
-            if (visitedHashes.add(hashPointer)) {
-                final TransactionViewModel transactionViewModel2 = TransactionViewModel.fromHash(tangle, hashPointer);
+        traversal.walk(Collections.singletonList(hash), visitedHashes, (level, nonAnalyzedTransactions) -> {
+            for (final TransactionViewModel transactionViewModel2 : TransactionViewModel.fromHashes(tangle, level).values()) {
                 if(transactionViewModel2.snapshotIndex() == 0) {
                     transactionViewModel2.setSnapshot(tangle, index);
                     messageQ.publish("%s %s %d sn", transactionViewModel2.getAddressHash(), transactionViewModel2.getHash(), index);
@@ -152,11 +215,12 @@ public class LedgerValidator {
                             transactionViewModel2.getTrunkTransactionHash(),
                             transactionViewModel2.getBranchTransactionHash(),
                             transactionViewModel2.getBundleHash());
-                    nonAnalyzedTransactions.offer(transactionViewModel2.getTrunkTransactionHash());
-                    nonAnalyzedTransactions.offer(transactionViewModel2.getBranchTransactionHash());
+                    nonAnalyzedTransactions.add(transactionViewModel2.getTrunkTransactionHash());
+                    nonAnalyzedTransactions.add(transactionViewModel2.getBranchTransactionHash());
                 }
             }
-        }
+            return true;
+        });
     }
 
     /**
@@ -166,17 +230,21 @@ public class LedgerValidator {
      * @throws Exception
      */
     private void updateConsistentHashes(final Set<Hash> visitedHashes, Hash tip, int index) throws Exception {
-        final Queue<Hash> nonAnalyzedTransactions = new LinkedList<>(Collections.singleton(tip));
-        Hash hashPointer;
-        while ((hashPointer = nonAnalyzedTransactions.poll()) != null) {
-            final TransactionViewModel transactionViewModel2 = TransactionViewModel.fromHash(tangle, hashPointer);
-            if((transactionViewModel2.snapshotIndex() == 0 || transactionViewModel2.snapshotIndex() > index) ) {
-                if(visitedHashes.add(hashPointer)) {
-                    nonAnalyzedTransactions.offer(transactionViewModel2.getTrunkTransactionHash());
-                    nonAnalyzedTransactions.offer(transactionViewModel2.getBranchTransactionHash());
+        final Set<Hash> consistentHashes = ConcurrentHashMap.newKeySet();
+        traversal.walk(Collections.singletonList(tip), new HashSet<>(visitedHashes), (level, nonAnalyzedTransactions) -> {
+            TransactionViewModel.indexAll(tangle, level);
+            for (Hash hashPointer : level) {
+                final int snapshotIndex = TransactionViewModel.getSnapshotIndex(tangle, hashPointer);
+                if((snapshotIndex == 0 || snapshotIndex > index) ) {
+                    consistentHashes.add(hashPointer);
+                    Hash[] parents = TransactionViewModel.getParentHashes(tangle, hashPointer);
+                    nonAnalyzedTransactions.add(parents[0]);
+                    nonAnalyzedTransactions.add(parents[1]);
                 }
             }
-        }
+            return true;
+        });
+        visitedHashes.addAll(consistentHashes);
     }
 
     /**
@@ -206,9 +274,18 @@ public class LedgerValidator {
      */
     private MilestoneViewModel buildSnapshot() throws Exception {
         MilestoneViewModel consistentMilestone = null;
-        milestone.latestSnapshot.rwlock.writeLock().lock();
+        milestone.latestSnapshot.updateLock.lock();
         try {
+            // readers keep seeing the previous version until the replay is complete
+            Snapshot.Builder snapshot = milestone.latestSnapshot.builder();
             MilestoneViewModel candidateMilestone = MilestoneViewModel.first(tangle);
+            LocalSnapshot localSnapshot = loadLocalSnapshot();
+            if (localSnapshot != null) {
+                snapshot.reset(localSnapshot.balances, localSnapshot.index);
+                consistentMilestone = MilestoneViewModel.get(tangle, localSnapshot.index);
+                candidateMilestone = consistentMilestone.next(tangle);
+                log.info("Loaded local snapshot of milestone #" + localSnapshot.index);
+            }
             while (candidateMilestone != null) {
                 if (candidateMilestone.index() % 10000 == 0) {
                     StringBuilder logMessage = new StringBuilder();
@@ -224,8 +301,7 @@ public class LedgerValidator {
                     StateDiffViewModel stateDiffViewModel = StateDiffViewModel.load(tangle, candidateMilestone.getHash());
 
                     if (stateDiffViewModel != null && !stateDiffViewModel.isEmpty()) {
-                        if (Snapshot.isConsistent(milestone.latestSnapshot.patchedDiff(stateDiffViewModel.getDiff()))) {
-                            milestone.latestSnapshot.apply(stateDiffViewModel.getDiff(), candidateMilestone.index());
+                        if (snapshot.applyIfConsistent(stateDiffViewModel, candidateMilestone.index())) {
                             consistentMilestone = candidateMilestone;
                         } else {
                             break;
@@ -234,21 +310,116 @@ public class LedgerValidator {
                 }
                 candidateMilestone = candidateMilestone.next(tangle);
             }
+            snapshot.publish();
         } finally {
-            milestone.latestSnapshot.rwlock.writeLock().unlock();
+            milestone.latestSnapshot.updateLock.unlock();
         }
         return consistentMilestone;
     }
 
+    /**
+     * @return the local snapshot, or {@code null} if there is none or it does not match the stored milestones
+     */
+    private LocalSnapshot loadLocalSnapshot() throws Exception {
+        if (localSnapshotFile == null || !Files.exists(localSnapshotFile)) {
+            return null;
+        }
+        LocalSnapshot localSnapshot;
+        try {
+            localSnapshot = LocalSnapshot.read(localSnapshotFile);
+        } catch (IOException e) {
+            log.warn("Ignoring local snapshot.", e);
+            return null;
+        }
+        MilestoneViewModel milestoneViewModel = MilestoneViewModel.get(tangle, localSnapshot.index);
+        if (milestoneViewModel == null || !milestoneViewModel.getHash().equals(localSnapshot.milestone)) {
+            log.warn("Ignoring local snapshot of milestone #{}, the milestone is not stored.", localSnapshot.index);
+            return null;
+        }
+        long supply = localSnapshot.balances.values().stream().reduce(0L, Math::addExact);
+        if (supply != TransactionViewModel.SUPPLY || !Snapshot.isConsistent(localSnapshot.balances)) {
+            log.warn("Ignoring local snapshot of milestone #{}, its balances are inconsistent.", localSnapshot.index);
+            return null;
+        }
+        return localSnapshot;
+    }
+
+    private void writeLocalSnapshot(LocalSnapshot localSnapshot) {
+        long start = System.currentTimeMillis();
+        try {
+            localSnapshot.write(localSnapshotFile);
+            log.info("Wrote local snapshot of milestone #{} in {} ms", localSnapshot.index,
+                    System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Error writing local snapshot.", e);
+        }
+    }
+
+    /**
+     * The value transactions below a milestone, collected ahead of applying it.
+     */
+    public static class PreparedMilestone {
+        private final Hash hash;
+        private final Map<Hash, List<UnconfirmedDiffCache.Change>> changes;
+
+        private PreparedMilestone(Hash hash, Map<Hash, List<UnconfirmedDiffCache.Change>> changes) {
+            this.hash = hash;
+            this.changes = changes;
+        }
+    }
+
+    /**
+     * Walks the subtangle below {milestoneVM} down to the latest snapshot and validates its bundles while the milestones
+     * before it are still being applied. {@link #updateSnapshot(MilestoneViewModel, PreparedMilestone)} then only leaves
+     * out the bundles those milestones confirmed in the meantime.
+     * @return null if the subtangle is not complete or not consistent
+     */
+    public PreparedMilestone prepareSnapshot(MilestoneViewModel milestoneVM) throws Exception {
+        Map<Hash, List<UnconfirmedDiffCache.Change>> changes = new ConcurrentHashMap<>();
+        if (collectChanges(new HashSet<>(), milestoneVM.getHash(), milestone.latestSnapshot.index(), true, changes) < 0) {
+            return null;
+        }
+        return new PreparedMilestone(milestoneVM.getHash(), changes);
+    }
+
+    /**
+     * A milestone confirms every transaction below it that is not confirmed yet, so the bundles of {prepared} confirmed
+     * since it was walked are exactly those whose tail is now confirmed, and the remaining ones are what
+     * {@link #getLatestDiff} would count.
+     * @return the balance changes of the bundles of {prepared} not confirmed by the latest snapshot
+     */
+    private Map<Hash, Long> unconfirmedChanges(PreparedMilestone prepared) throws Exception {
+        final int latestSnapshotIndex = milestone.latestSnapshot.index();
+        List<List<UnconfirmedDiffCache.Change>> unconfirmedBundles = new ArrayList<>();
+        for (Map.Entry<Hash, List<UnconfirmedDiffCache.Change>> bundle : prepared.changes.entrySet()) {
+            final int snapshotIndex = TransactionViewModel.getSnapshotIndex(tangle, bundle.getKey());
+            if (snapshotIndex == 0 || snapshotIndex > latestSnapshotIndex) {
+                unconfirmedBundles.add(bundle.getValue());
+            }
+        }
+        return sumChanges(unconfirmedBundles);
+    }
+
     public boolean updateSnapshot(MilestoneViewModel milestoneVM) throws Exception {
+        return updateSnapshot(milestoneVM, null);
+    }
+
+    /**
+     * @param prepared the result of {@link #prepareSnapshot} for {milestoneVM}, or null to walk its subtangle now
+     */
+    public boolean updateSnapshot(MilestoneViewModel milestoneVM, PreparedMilestone prepared) throws Exception {
         TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, milestoneVM.getHash());
-        milestone.latestSnapshot.rwlock.writeLock().lock();
+        LocalSnapshot localSnapshot = null;
+        boolean hasSnapshot;
+        milestone.latestSnapshot.updateLock.lock();
         try {
             final int transactionSnapshotIndex = transactionViewModel.snapshotIndex();
-            boolean hasSnapshot = transactionSnapshotIndex != 0;
+            hasSnapshot = transactionSnapshotIndex != 0;
             if (!hasSnapshot) {
                 Hash tail = transactionViewModel.getHash();
-                Map<Hash, Long> currentState = getLatestDiff(new HashSet<>(), tail, milestone.latestSnapshot.index(), true);
+                Map<Hash, Long> currentState = prepared != null && prepared.hash.equals(tail)
+                        ? unconfirmedChanges(prepared)
+                        : getLatestDiff(new HashSet<>(), tail, milestone.latestSnapshot.index(), true);
                 hasSnapshot = currentState != null && Snapshot.isConsistent(milestone.latestSnapshot.patchedDiff(currentState));
                 if (hasSnapshot) {
                     updateSnapshotMilestone(milestoneVM.getHash(), milestoneVM.index());
@@ -258,12 +429,21 @@ public class LedgerValidator {
                         stateDiffViewModel.store(tangle);
                     }
                     milestone.latestSnapshot.apply(currentState, milestoneVM.index());
+                    unconfirmedDiffCache.clear();
+                    if (localSnapshotInterval > 0 && milestoneVM.index() % localSnapshotInterval == 0) {
+                        localSnapshot = new LocalSnapshot(milestoneVM.index(), milestoneVM.getHash(),
+                                milestone.latestSnapshot.getState());
+                    }
                 }
             }
-            return hasSnapshot;
         } finally {
-            milestone.latestSnapshot.rwlock.writeLock().unlock();
+            milestone.latestSnapshot.updateLock.unlock();
+        }
+        // the copy of the balances is written without holding up the next milestone
+        if (localSnapshot != null) {
+            writeLocalSnapshot(localSnapshot);
         }
+        return hasSnapshot;
     }
 
     public boolean checkConsistency(List<Hash> hashes) throws Exception {
@@ -284,11 +464,19 @@ public class LedgerValidator {
         if (approvedHashes.contains(tip)) {
             return true;
         }
-        Set<Hash> visitedHashes = new HashSet<>(approvedHashes);
-        Map<Hash, Long> currentState = getLatestDiff(visitedHashes, tip, milestone.latestSnapshot.index(), false);
-        if (currentState == null) {
+        UnconfirmedDiffCache.Entry subtangle = unconfirmedSubtangle(tip);
+        if (subtangle == null) {
             return false;
         }
+        // approved hashes always come with everything below them, so the bundles of the subtangle that are not yet
+        // approved are exactly those a traversal stopping at the approved hashes would count
+        List<List<UnconfirmedDiffCache.Change>> unapprovedBundles = new ArrayList<>();
+        subtangle.changes.forEach((tail, bundle) -> {
+            if (!approvedHashes.contains(tail)) {
+                unapprovedBundles.add(bundle);
+            }
+        });
+        Map<Hash, Long> currentState = sumChanges(unapprovedBundles);
         diff.forEach((key, value) -> {
             if(currentState.computeIfPresent(key, ((hash, aLong) -> value + aLong)) == null) {
                 currentState.putIfAbsent(key, value);
@@ -297,8 +485,27 @@ public class LedgerValidator {
         boolean isConsistent = Snapshot.isConsistent(milestone.latestSnapshot.patchedDiff(currentState));
         if (isConsistent) {
             diff.putAll(currentState);
-            approvedHashes.addAll(visitedHashes);
+            approvedHashes.addAll(subtangle.visited);
         }
         return isConsistent;
     }
+
+    /**
+     * @return the subtangle below {tip} down to the latest snapshot, shared by all callers until the next milestone is
+     * applied, or null if it is not consistent
+     */
+    private UnconfirmedDiffCache.Entry unconfirmedSubtangle(Hash tip) throws Exception {
+        final int latestSnapshotIndex = milestone.latestSnapshot.index();
+        UnconfirmedDiffCache.Entry subtangle = unconfirmedDiffCache.get(tip, latestSnapshotIndex);
+        if (subtangle == null) {
+            Set<Hash> visitedHashes = new HashSet<>();
+            Map<Hash, List<UnconfirmedDiffCache.Change>> changes = new ConcurrentHashMap<>();
+            if (collectChanges(visitedHashes, tip, latestSnapshotIndex, false, changes) < 0) {
+                return null;
+            }
+            subtangle = new UnconfirmedDiffCache.Entry(visitedHashes, changes);
+            unconfirmedDiffCache.put(tip, latestSnapshotIndex, subtangle);
+        }
+        return subtangle;
+    }
 }
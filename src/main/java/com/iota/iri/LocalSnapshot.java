@@ -0,0 +1,112 @@
+package com.iota.iri;
+
+import com.iota.iri.model.Hash;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ledger state at a solid milestone, written by the node itself so it can start from there instead of replaying
+ * every {@link com.iota.iri.model.StateDiff} since the initial snapshot.
+ *
+ * The file holds the milestone index and hash followed by the balances as pairs of address bytes and balance, and
+ * ends with a SHA-256 digest of everything before it, so truncated or corrupted files are rejected.
+ */
+public class LocalSnapshot {
+    private static final int MAGIC = 0x4c534e50;
+    private static final byte VERSION = 1;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_LENGTH = 32;
+    // magic, version, milestone index, milestone hash and number of balances
+    private static final int HEADER_LENGTH = Integer.BYTES + 1 + Integer.BYTES + Hash.SIZE_IN_BYTES + Integer.BYTES;
+    private static final int BALANCE_LENGTH = Hash.SIZE_IN_BYTES + Long.BYTES;
+
+    public final int index;
+    public final Hash milestone;
+    public final Map<Hash, Long> balances;
+
+    public LocalSnapshot(int index, Hash milestone, Map<Hash, Long> balances) {
+        this.index = index;
+        this.milestone = milestone;
+        this.balances = balances;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to {@code file} and moves it in place, so {@code file} always
+     * holds a complete snapshot.
+     */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        MessageDigest digest = newDigest();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            DataOutputStream digested = new DataOutputStream(new DigestOutputStream(out, digest));
+            digested.writeInt(MAGIC);
+            digested.writeByte(VERSION);
+            digested.writeInt(index);
+            digested.write(milestone.bytes());
+            digested.writeInt(balances.size());
+            for (Map.Entry<Hash, Long> balance : balances.entrySet()) {
+                digested.write(balance.getKey().bytes());
+                digested.writeLong(balance.getValue());
+            }
+            digested.flush();
+            out.write(digest.digest());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a complete snapshot
+     */
+    public static LocalSnapshot read(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        long length = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            DataInputStream digested = new DataInputStream(new DigestInputStream(in, digest));
+            if (digested.readInt() != MAGIC || digested.readByte() != VERSION) {
+                throw new IOException("Not a local snapshot: " + file);
+            }
+            int index = digested.readInt();
+            Hash milestone = readHash(digested);
+            int size = digested.readInt();
+            // the number of balances is not verified yet, it must not size the map before it matches the file
+            if (size < 0 || (long) size * BALANCE_LENGTH != length - HEADER_LENGTH - DIGEST_LENGTH) {
+                throw new IOException("Local snapshot is corrupted: " + file);
+            }
+            Map<Hash, Long> balances = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                balances.put(readHash(digested), digested.readLong());
+            }
+            byte[] expected = digest.digest();
+            byte[] actual = new byte[expected.length];
+            in.readFully(actual);
+            if (!Arrays.equals(expected, actual) || in.read() != -1) {
+                throw new IOException("Local snapshot is corrupted: " + file);
+            }
+            return new LocalSnapshot(index, milestone, balances);
+        }
+    }
+
+    private static Hash readHash(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[Hash.SIZE_IN_BYTES];
+        in.readFully(bytes);
+        return new Hash(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,10 +6,22 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.HttpsURLConnection;
@@ -21,9 +33,9 @@ import com.iota.iri.storage.Tangle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.iota.iri.hash.ISS;
 import com.iota.iri.model.Hash;
 import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.Pair;
 
 import static com.iota.iri.Milestone.Validity.*;
 
@@ -54,6 +66,18 @@ public class Milestone {
     public int latestSolidSubtangleMilestoneIndex;
 
     private final Set<Hash> analyzedMilestoneCandidates = new HashSet<>();
+    private final BlockingQueue<Hash> milestoneCandidates = new LinkedBlockingQueue<>();
+    // tails of milestones whose bundle was incomplete, by bundle hash, validated again once the bundle grows
+    private final Map<Hash, Hash> incompleteMilestoneCandidates = new ConcurrentHashMap<>();
+
+    // milestones after the next one that are solidified and walked ahead while the next one is applied
+    private int pipelineDepth = 0;
+    private ExecutorService solidifier;
+    // milestone candidates are validated on this many threads, 0 or less uses one per processor
+    private int validationThreads = 0;
+    private ExecutorService validator;
+    private MilestoneVerifier verifier;
+    private final Map<Integer, Future<LedgerValidator.PreparedMilestone>> preparedMilestones = new HashMap<>();
 
     public Milestone(final Tangle tangle,
                      final Hash coordinator,
@@ -81,8 +105,40 @@ public class Milestone {
     private boolean shuttingDown;
     private static int RESCAN_INTERVAL = 5000;
 
+    /**
+     * Sets the number of threads validating milestone candidates, 0 or less uses one per processor. Must be called
+     * before {@link #init}.
+     */
+    public void setValidationThreads(int threads) {
+        this.validationThreads = threads;
+    }
+
+    /**
+     * Makes the solid milestone tracker check the solidity of up to {@code depth} milestones after the next one and walk
+     * their subtangles while the next one is applied. Must be called before {@link #init}.
+     *
+     * @param depth 0 or less applies milestones strictly one at a time
+     */
+    public void setPipelineDepth(int depth) {
+        this.pipelineDepth = Math.max(0, depth);
+    }
+
     public void init(final SpongeFactory.Mode mode, final LedgerValidator ledgerValidator, final boolean revalidate) throws Exception {
         this.ledgerValidator = ledgerValidator;
+        verifier = new MilestoneVerifier(mode, coordinator, numOfKeysInMilestone);
+        validator = Executors.newFixedThreadPool(
+                validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "Milestone Validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (pipelineDepth > 0) {
+            solidifier = Executors.newFixedThreadPool(pipelineDepth, runnable -> {
+                Thread thread = new Thread(runnable, "Milestone Solidifier");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         AtomicBoolean ledgerValidatorInitialized = new AtomicBoolean(false);
         (new Thread(() -> {
             log.info("Waiting for Ledger Validator initialization...");
@@ -93,47 +149,39 @@ public class Milestone {
                 }
             }
             log.info("Tracker started.");
+            try {
+                // later candidates are reported as they are stored
+                milestoneCandidates.addAll(AddressViewModel.load(tangle, coordinator).getHashes());
+            } catch (Exception e) {
+                log.error("Error loading milestone candidates", e);
+            }
             while (!shuttingDown) {
-                long scanTime = System.currentTimeMillis();
-
                 try {
                     final int previousLatestMilestoneIndex = latestMilestoneIndex;
-                    Set<Hash> hashes = AddressViewModel.load(tangle, coordinator).getHashes();
-                    { // Update Milestone
-                        { // find new milestones
-                            for(Hash hash: hashes) {
-                                if(analyzedMilestoneCandidates.add(hash)) {
-                                    TransactionViewModel t = TransactionViewModel.fromHash(tangle, hash);
-                                    if (t.getCurrentIndex() == 0) {
-                                        final Validity valid = validateMilestone(mode, t, getIndex(t));
-                                        switch (valid) {
-                                            case VALID:
-                                                MilestoneViewModel milestoneViewModel = MilestoneViewModel.latest(tangle);
-                                                if (milestoneViewModel != null && milestoneViewModel.index() > latestMilestoneIndex) {
-                                                    latestMilestone = milestoneViewModel.getHash();
-                                                    latestMilestoneIndex = milestoneViewModel.index();
-                                                }
-                                                break;
-                                            case INCOMPLETE:
-                                                analyzedMilestoneCandidates.remove(t.getHash());
-                                                break;
-                                            case INVALID:
-                                                //Do nothing
-                                                break;
-                                        }
-                                    }
-                                }
+                    Hash hash = milestoneCandidates.poll(RESCAN_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (hash == null) {
+                        // in case a missing transaction of an incomplete bundle was stored without being reported
+                        for (Hash bundle : incompleteMilestoneCandidates.keySet()) {
+                            Hash tail = incompleteMilestoneCandidates.remove(bundle);
+                            if (tail != null) {
+                                milestoneCandidates.offer(tail);
                             }
                         }
+                        continue;
                     }
+                    List<Hash> hashes = new ArrayList<>();
+                    hashes.add(hash);
+                    milestoneCandidates.drainTo(hashes);
+                    analyzeMilestoneCandidates(mode, hashes);
 
                     if (previousLatestMilestoneIndex != latestMilestoneIndex) {
                         messageQ.publish("lmi %d %d", previousLatestMilestoneIndex, latestMilestoneIndex);
                         log.info("Latest milestone has changed from #" + previousLatestMilestoneIndex
                                 + " to #" + latestMilestoneIndex);
                     }
-
-                    Thread.sleep(Math.max(1, RESCAN_INTERVAL - (System.currentTimeMillis() - scanTime)));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (final Exception e) {
                     log.error("Error during Latest Milestone updating", e);
                 }
@@ -179,6 +227,77 @@ public class Milestone {
 
     }
 
+    /**
+     * Reports a newly stored transaction, which the latest milestone tracker validates if it was issued by the
+     * coordinator or completes a milestone bundle that was incomplete.
+     */
+    public void addMilestoneCandidate(TransactionViewModel transactionViewModel) {
+        if (coordinator.equals(transactionViewModel.getAddressHash())) {
+            milestoneCandidates.offer(transactionViewModel.getHash());
+        }
+        // any transaction of the bundle, the coordinator's included, may be the one completing a stalled tail
+        if (!incompleteMilestoneCandidates.isEmpty()) {
+            Hash tail = incompleteMilestoneCandidates.remove(transactionViewModel.getBundleHash());
+            if (tail != null && !tail.equals(transactionViewModel.getHash())) {
+                milestoneCandidates.offer(tail);
+            }
+        }
+    }
+
+    /**
+     * Validates the tails among {@code hashes} that were not analyzed yet concurrently, then updates the latest
+     * milestone once.
+     */
+    private void analyzeMilestoneCandidates(SpongeFactory.Mode mode, List<Hash> hashes) throws Exception {
+        long startTime = System.currentTimeMillis();
+        long verifications = verifier.getVerifications();
+        long cacheHits = verifier.getCacheHits();
+        List<Callable<Pair<TransactionViewModel, Validity>>> validations = new ArrayList<>();
+        for (Hash hash : hashes) {
+            if (analyzedMilestoneCandidates.add(hash)) {
+                validations.add(() -> {
+                    TransactionViewModel t = TransactionViewModel.fromHash(tangle, hash);
+                    return new Pair<>(t, t.getCurrentIndex() == 0 ? validateMilestone(mode, t, getIndex(t)) : INVALID);
+                });
+            }
+        }
+        boolean foundValid = false;
+        for (Future<Pair<TransactionViewModel, Validity>> validation : validator.invokeAll(validations)) {
+            final Pair<TransactionViewModel, Validity> result;
+            try {
+                result = validation.get();
+            } catch (ExecutionException e) {
+                log.error("Error validating milestone candidate", e.getCause());
+                continue;
+            }
+            switch (result.hi) {
+                case VALID:
+                    foundValid = true;
+                    break;
+                case INCOMPLETE:
+                    analyzedMilestoneCandidates.remove(result.low.getHash());
+                    incompleteMilestoneCandidates.put(result.low.getBundleHash(), result.low.getHash());
+                    break;
+                case INVALID:
+                    //Do nothing
+                    break;
+            }
+        }
+        if (foundValid) {
+            MilestoneViewModel milestoneViewModel = MilestoneViewModel.latest(tangle);
+            if (milestoneViewModel != null && milestoneViewModel.index() > latestMilestoneIndex) {
+                latestMilestone = milestoneViewModel.getHash();
+                latestMilestoneIndex = milestoneViewModel.index();
+            }
+        }
+        if (validations.size() > 1) {
+            long time = Math.max(1, System.currentTimeMillis() - startTime);
+            log.info("Validated {} milestone candidates in {} ms ({}/s, {} signatures verified, {} from cached paths)",
+                    validations.size(), time, validations.size() * 1000 / time,
+                    verifier.getVerifications() - verifications, verifier.getCacheHits() - cacheHits);
+        }
+    }
+
     private Validity validateMilestone(SpongeFactory.Mode mode, TransactionViewModel transactionViewModel, int index) throws Exception {
         if (index < 0 || index >= 0x200000) {
             return INVALID;
@@ -207,12 +326,8 @@ public class Milestone {
                         final int[] trunkTransactionTrits = transactionViewModel.getTrunkTransactionHash().trits();
                         final int[] signatureFragmentTrits = Arrays.copyOfRange(transactionViewModel.trits(), TransactionViewModel.SIGNATURE_MESSAGE_FRAGMENT_TRINARY_OFFSET, TransactionViewModel.SIGNATURE_MESSAGE_FRAGMENT_TRINARY_OFFSET + TransactionViewModel.SIGNATURE_MESSAGE_FRAGMENT_TRINARY_SIZE);
 
-                        final int[] merkleRoot = ISS.getMerkleRoot(mode, ISS.address(mode, ISS.digest(mode,
-                                Arrays.copyOf(ISS.normalizedBundle(trunkTransactionTrits),
-                                        ISS.NUMBER_OF_FRAGMENT_CHUNKS),
-                                signatureFragmentTrits)),
-                                transactionViewModel2.trits(), 0, index, numOfKeysInMilestone);
-                        if ((testnet && acceptAnyTestnetCoo) || (new Hash(merkleRoot)).equals(coordinator)) {
+                        if ((testnet && acceptAnyTestnetCoo) || verifier.verify(trunkTransactionTrits,
+                                signatureFragmentTrits, transactionViewModel2.trits(), 0, index)) {
                             new MilestoneViewModel(index, transactionViewModel.getHash()).store(tangle);
                             return VALID;
                         } else {
@@ -228,14 +343,17 @@ public class Milestone {
     void updateLatestSolidSubtangleMilestone() throws Exception {
         MilestoneViewModel milestoneViewModel;
         MilestoneViewModel latest = MilestoneViewModel.latest(tangle);
+        preparedMilestones.keySet().removeIf(index -> index <= latestSolidSubtangleMilestoneIndex);
         if (latest != null) {
             for (milestoneViewModel = MilestoneViewModel.findClosestNextMilestone(
                     tangle, latestSolidSubtangleMilestoneIndex, testnet, milestoneStartIndex);
                  milestoneViewModel != null && milestoneViewModel.index() <= latest.index() && !shuttingDown;
                  milestoneViewModel = milestoneViewModel.next(tangle)) {
-                if (transactionValidator.checkSolidity(milestoneViewModel.getHash(), true) &&
+                prepareAhead(milestoneViewModel, latest.index());
+                final LedgerValidator.PreparedMilestone prepared = takePrepared(milestoneViewModel);
+                if ((prepared != null || transactionValidator.checkSolidity(milestoneViewModel.getHash(), true)) &&
                         milestoneViewModel.index() >= latestSolidSubtangleMilestoneIndex &&
-                        ledgerValidator.updateSnapshot(milestoneViewModel)) {
+                        ledgerValidator.updateSnapshot(milestoneViewModel, prepared)) {
                     latestSolidSubtangleMilestone = milestoneViewModel.getHash();
                     latestSolidSubtangleMilestoneIndex = milestoneViewModel.index();
                 } else {
@@ -245,12 +363,61 @@ public class Milestone {
         }
     }
 
+    /**
+     * Starts solidifying and walking the milestones after {@code next} that are not being prepared yet.
+     */
+    private void prepareAhead(MilestoneViewModel next, int latestIndex) throws Exception {
+        if (solidifier == null) {
+            return;
+        }
+        MilestoneViewModel ahead = next;
+        for (int i = 0; i < pipelineDepth; i++) {
+            ahead = ahead.next(tangle);
+            if (ahead == null || ahead.index() > latestIndex) {
+                break;
+            }
+            final MilestoneViewModel milestoneViewModel = ahead;
+            Future<LedgerValidator.PreparedMilestone> prepared = preparedMilestones.get(milestoneViewModel.index());
+            // milestones that were not solid yet are tried again
+            if (prepared == null || prepared.isDone() && getPrepared(milestoneViewModel, prepared) == null) {
+                preparedMilestones.put(milestoneViewModel.index(), solidifier.submit(() ->
+                        transactionValidator.checkSolidity(milestoneViewModel.getHash(), true)
+                                ? ledgerValidator.prepareSnapshot(milestoneViewModel) : null));
+            }
+        }
+    }
+
+    /**
+     * @return the prepared subtangle of {@code milestoneViewModel}, or null if it was not prepared or is not solid or
+     * consistent yet, in which case the milestone is checked again on its own
+     */
+    private LedgerValidator.PreparedMilestone takePrepared(MilestoneViewModel milestoneViewModel) throws InterruptedException {
+        Future<LedgerValidator.PreparedMilestone> prepared = preparedMilestones.remove(milestoneViewModel.index());
+        return prepared == null ? null : getPrepared(milestoneViewModel, prepared);
+    }
+
+    private LedgerValidator.PreparedMilestone getPrepared(MilestoneViewModel milestoneViewModel,
+                                                          Future<LedgerValidator.PreparedMilestone> prepared) throws InterruptedException {
+        try {
+            return prepared.get();
+        } catch (ExecutionException e) {
+            log.error("Error preparing milestone #" + milestoneViewModel.index(), e.getCause());
+            return null;
+        }
+    }
+
     static int getIndex(TransactionViewModel transactionViewModel) {
         return (int) Converter.longValue(transactionViewModel.trits(), TransactionViewModel.OBSOLETE_TAG_TRINARY_OFFSET, 15);
     }
 
     void shutDown() {
         shuttingDown = true;
+        if (validator != null) {
+            validator.shutdownNow();
+        }
+        if (solidifier != null) {
+            solidifier.shutdownNow();
+        }
     }
 
     public void reportToSlack(final int milestoneIndex, final int depth, final int nextDepth) {
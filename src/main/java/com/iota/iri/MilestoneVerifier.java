@@ -0,0 +1,104 @@
+package com.iota.iri;
+
+import com.iota.iri.hash.Curl;
+import com.iota.iri.hash.ISS;
+import com.iota.iri.hash.Sponge;
+import com.iota.iri.hash.SpongeFactory;
+import com.iota.iri.model.Hash;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that a milestone was signed by the coordinator: the signature resolves to a leaf address of the coordinator's
+ * Merkle tree, which the siblings of the milestone lead up to the coordinator address.
+ *
+ * The nodes of every verified path are remembered by level and position, so a later path stops as soon as it reaches a
+ * node that is known to lead to the root. Only the upper levels are kept, which have few positions, so the cache stays
+ * small however many milestones are verified. Thread safe.
+ */
+public class MilestoneVerifier {
+    // nodes are cached on the levels with at most this many positions
+    private static final int MAX_CACHED_POSITIONS = 1024;
+
+    private final SpongeFactory.Mode mode;
+    private final Hash coordinator;
+    private final int numOfKeysInMilestone;
+    private final int minCachedLevel;
+    private final Map<Long, Hash> verifiedNodes = new ConcurrentHashMap<>();
+
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    public MilestoneVerifier(SpongeFactory.Mode mode, Hash coordinator, int numOfKeysInMilestone) {
+        this.mode = mode;
+        this.coordinator = coordinator;
+        this.numOfKeysInMilestone = numOfKeysInMilestone;
+        int minCachedLevel = numOfKeysInMilestone;
+        while (minCachedLevel > 0 && 1L << (numOfKeysInMilestone - minCachedLevel + 1) <= MAX_CACHED_POSITIONS) {
+            minCachedLevel--;
+        }
+        this.minCachedLevel = minCachedLevel;
+    }
+
+    private static long key(int level, int position) {
+        return (long) level << 32 | position;
+    }
+
+    /**
+     * @param signedHash        the hash the coordinator signed
+     * @param signatureFragment the signature of the first {@link ISS#NUMBER_OF_FRAGMENT_CHUNKS} trytes of the
+     *                          normalized {@code signedHash}
+     * @param siblings          the siblings of the path from the leaf to the root, starting at {@code offset}
+     * @param index             the index of the leaf, which is the milestone index
+     */
+    public boolean verify(int[] signedHash, int[] signatureFragment, int[] siblings, int offset, int index) {
+        verifications.incrementAndGet();
+        int[] node = ISS.address(mode, ISS.digest(mode,
+                Arrays.copyOf(ISS.normalizedBundle(signedHash), ISS.NUMBER_OF_FRAGMENT_CHUNKS),
+                signatureFragment));
+        if (index < 0 || (index >>> numOfKeysInMilestone) != 0) {
+            return false;
+        }
+        final Hash[] path = new Hash[numOfKeysInMilestone];
+        final Sponge curl = SpongeFactory.create(mode);
+        for (int level = 0; level < numOfKeysInMilestone; level++) {
+            final int position = index >>> level;
+            path[level] = new Hash(node);
+            if (level >= minCachedLevel) {
+                Hash verifiedNode = verifiedNodes.get(key(level, position));
+                if (verifiedNode != null) {
+                    cacheHits.incrementAndGet();
+                    return verifiedNode.equals(path[level]);
+                }
+            }
+            curl.reset();
+            if ((position & 1) == 0) {
+                curl.absorb(node, 0, node.length);
+                curl.absorb(siblings, offset + level * Curl.HASH_LENGTH, Curl.HASH_LENGTH);
+            } else {
+                curl.absorb(siblings, offset + level * Curl.HASH_LENGTH, Curl.HASH_LENGTH);
+                curl.absorb(node, 0, node.length);
+            }
+            node = new int[Curl.HASH_LENGTH];
+            curl.squeeze(node, 0, node.length);
+        }
+        if (!new Hash(node).equals(coordinator)) {
+            return false;
+        }
+        for (int level = minCachedLevel; level < numOfKeysInMilestone; level++) {
+            verifiedNodes.put(key(level, index >>> level), path[level]);
+        }
+        return true;
+    }
+
+    public long getVerifications() {
+        return verifications.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+}
@@ -1,17 +1,20 @@
 package com.iota.iri;
 
+import com.iota.iri.controllers.StateDiffViewModel;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
+import com.iota.iri.utils.BalanceTable;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 
@@ -24,9 +27,6 @@ public class Snapshot {
     private static Snapshot initialSnapshot;
 
 
-    public final ReadWriteLock rwlock = new ReentrantReadWriteLock();
-
-
     public static Snapshot init(String snapshotPath, String snapshotSigPath, boolean testnet) {
         //This is not thread-safe (and it is ok)
         if (initialSnapshot == null) {
@@ -96,56 +96,195 @@ public class Snapshot {
         return state;
     }
 
-    protected final Map<Hash, Long> state;
-    private int index;
+    /**
+     * An immutable state of the ledger: the balances changed since {@code base} was built are kept in
+     * {@code overlay}, so publishing a milestone copies the overlay rather than the whole ledger.
+     */
+    private static class Version {
+        // off-heap, so the garbage collector does not trace the hundreds of thousands of long-lived ledger entries
+        private final BalanceTable base;
+        private final Map<Hash, Long> overlay;
+        private final int index;
 
-    public int index() {
-        int i;
-        rwlock.readLock().lock();
-        i = index;
-        rwlock.readLock().unlock();
-        return i;
+        private Version(BalanceTable base, Map<Hash, Long> overlay, int index) {
+            this.base = base;
+            this.overlay = overlay;
+            this.index = index;
+        }
+
+        private long getBalance(Hash address, long absent) {
+            Long balance = overlay.get(address);
+            return balance != null ? balance : base.getBalance(address, absent);
+        }
+
+        private BalanceTable materialize() {
+            BalanceTable balances = base.copy();
+            overlay.forEach(balances::put);
+            return balances;
+        }
     }
 
+    /**
+     * Keeps the calling thread on one version of the snapshot until it is closed.
+     */
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // the overlay is folded into a new base once it holds this many balances
+    private static final int MAX_OVERLAY_SIZE = 10000;
+    private static final Pin NESTED_PIN = () -> {};
+
+    private final ThreadLocal<Version> pinned = new ThreadLocal<>();
+    // readers never lock, only writers are serialized, for as long as they compute and publish a new version
+    public final Lock updateLock = new ReentrantLock();
+    private volatile Version version;
+
     private Snapshot(Map<Hash, Long> initialState, int index) {
-        state = new HashMap<>(initialState);
-        this.index = index;
+        BalanceTable balances = new BalanceTable(initialState.size(), true);
+        balances.putAll(initialState);
+        version = new Version(balances, Collections.emptyMap(), index);
+    }
+
+    private Snapshot(Version version) {
+        this.version = version;
     }
 
     public Snapshot clone() {
-        return new Snapshot(state, index);
+        Version current = current();
+        return new Snapshot(new Version(current.materialize(), Collections.emptyMap(), current.index));
+    }
+
+    /**
+     * Makes every read of the calling thread see the current version until the returned pin is closed, so a series of
+     * reads sees one consistent state while new milestones are published. Pins nest, the outermost one decides.
+     */
+    public Pin pin() {
+        if (pinned.get() != null) {
+            return NESTED_PIN;
+        }
+        pinned.set(version);
+        return pinned::remove;
+    }
+
+    private Version current() {
+        Version pinnedVersion = pinned.get();
+        return pinnedVersion != null ? pinnedVersion : version;
+    }
+
+    public int index() {
+        return current().index;
     }
 
     public Long getBalance(Hash hash) {
-        Long l;
-        rwlock.readLock().lock();
-        l = state.get(hash);
-        rwlock.readLock().unlock();
-        return l;
+        Version current = current();
+        Long balance = current.overlay.get(hash);
+        return balance != null ? balance : current.base.get(hash);
+    }
+
+    /**
+     * @return a copy of the balances
+     */
+    public Map<Hash, Long> getState() {
+        return current().materialize();
     }
 
     public Map<Hash, Long> patchedDiff(Map<Hash, Long> diff) {
-        Map<Hash, Long> patch;
-        rwlock.readLock().lock();
-        patch = diff.entrySet().stream().map(hashLongEntry ->
-            new HashMap.SimpleEntry<>(hashLongEntry.getKey(), state.getOrDefault(hashLongEntry.getKey(), 0L) + hashLongEntry.getValue())
+        Version current = current();
+        return diff.entrySet().stream().map(hashLongEntry ->
+            new HashMap.SimpleEntry<>(hashLongEntry.getKey(), current.getBalance(hashLongEntry.getKey(), 0L) + hashLongEntry.getValue())
         ).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        rwlock.readLock().unlock();
-        return patch;
     }
 
     void apply(Map<Hash, Long> patch, int newIndex) {
         if (!patch.entrySet().stream().map(Map.Entry::getValue).reduce(Math::addExact).orElse(0L).equals(0L)) {
             throw new RuntimeException("Diff is not consistent.");
         }
-        rwlock.writeLock().lock();
-        patch.entrySet().stream().forEach(hashLongEntry -> {
-            if (state.computeIfPresent(hashLongEntry.getKey(), (hash, aLong) -> hashLongEntry.getValue() + aLong) == null) {
-                state.putIfAbsent(hashLongEntry.getKey(), hashLongEntry.getValue());
+        updateLock.lock();
+        try {
+            Version previous = version;
+            Map<Hash, Long> overlay = new HashMap<>(previous.overlay);
+            patch.forEach((address, delta) -> overlay.put(address, previous.getBalance(address, 0L) + delta));
+            BalanceTable base = previous.base;
+            if (overlay.size() > MAX_OVERLAY_SIZE) {
+                base = base.copy();
+                overlay.forEach(base::put);
+                overlay.clear();
+            }
+            version = new Version(base, overlay, newIndex);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * @return a private copy of the current state, to replay many milestones without publishing a version for each
+     */
+    Builder builder() {
+        return new Builder(current());
+    }
+
+    /**
+     * Applies milestones in place to a private copy of the balances, which {@link #publish} then makes the current
+     * version as a whole.
+     */
+    class Builder {
+        private BalanceTable balances;
+        private int index;
+
+        private Builder(Version from) {
+            balances = from.materialize();
+            index = from.index;
+        }
+
+        int index() {
+            return index;
+        }
+
+        /**
+         * Replaces the balances with those of a snapshot taken at milestone {@code newIndex}.
+         */
+        void reset(Map<Hash, Long> newState, int newIndex) {
+            balances = new BalanceTable(newState.size(), true);
+            balances.putAll(newState);
+            index = newIndex;
+        }
+
+        /**
+         * Applies the balance changes of {@code diff} for milestone {@code newIndex} straight from its stored form,
+         * unless a balance would become negative.
+         *
+         * @return false if nothing was applied because a balance would become negative
+         */
+        boolean applyIfConsistent(StateDiffViewModel diff, int newIndex) {
+            long[] sum = new long[1];
+            boolean[] consistent = {true};
+            diff.forEach((address, delta) -> {
+                sum[0] = Math.addExact(sum[0], delta);
+                if (balances.getBalance(address, 0L) + delta < 0) {
+                    consistent[0] = false;
+                }
+            });
+            if (!consistent[0]) {
+                return false;
             }
-        });
-        index = newIndex;
-        rwlock.writeLock().unlock();
+            if (sum[0] != 0) {
+                throw new RuntimeException("Diff is not consistent.");
+            }
+            diff.forEach(balances::add);
+            index = newIndex;
+            return true;
+        }
+
+        void publish() {
+            updateLock.lock();
+            try {
+                version = new Version(balances, Collections.emptyMap(), index);
+            } finally {
+                updateLock.unlock();
+            }
+        }
     }
 
     public static boolean isConsistent(Map<Hash, Long> state) {
@@ -0,0 +1,126 @@
+package com.iota.iri;
+
+import com.iota.iri.controllers.MilestoneViewModel;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Tangle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Moves the bodies of transactions confirmed more than {@code depth} milestones before the latest solid milestone to
+ * the cold archive of the {@link Tangle}, one milestone at a time and in milestone order.
+ *
+ * The transactions of a milestone are archived together with the milestone itself, so the progress is not stored
+ * but found on startup as the latest milestone that is archived.
+ */
+public class TransactionArchiver {
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private static final long INTERVAL = 10000;
+
+    private final Tangle tangle;
+    private final Milestone milestone;
+    private final int milestoneStartIndex;
+    private final int depth;
+
+    private volatile boolean shuttingDown;
+    private Thread thread;
+    private int archivedIndex;
+
+    /**
+     * @param depth the number of milestones whose transactions stay in the hot storage, 0 or less archives nothing
+     */
+    public TransactionArchiver(Tangle tangle, Milestone milestone, int milestoneStartIndex, int depth) {
+        this.tangle = tangle;
+        this.milestone = milestone;
+        this.milestoneStartIndex = milestoneStartIndex;
+        this.depth = depth;
+    }
+
+    public void init() {
+        if (depth <= 0) {
+            return;
+        }
+        thread = new Thread(() -> {
+            try {
+                archivedIndex = findArchivedIndex(milestone.latestSolidSubtangleMilestoneIndex - depth);
+                log.info("Archiving transactions confirmed before milestone #{}, archived up to #{}.",
+                    milestone.latestSolidSubtangleMilestoneIndex - depth, archivedIndex);
+            } catch (Exception e) {
+                log.error("Error finding the archived milestones, archiving stopped.", e);
+                return;
+            }
+            while (!shuttingDown) {
+                try {
+                    archiveUpTo(milestone.latestSolidSubtangleMilestoneIndex - depth);
+                    Thread.sleep(INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("Error archiving transactions.", e);
+                }
+            }
+        }, "Transaction Archiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the latest milestone up to {@code target} whose transactions are archived
+     */
+    private int findArchivedIndex(int target) throws Exception {
+        for (int index = target; index > milestoneStartIndex; index--) {
+            MilestoneViewModel milestoneViewModel = MilestoneViewModel.get(tangle, index);
+            if (milestoneViewModel != null && tangle.isArchived(Transaction.class, milestoneViewModel.getHash())) {
+                return index;
+            }
+        }
+        return milestoneStartIndex;
+    }
+
+    void archiveUpTo(int target) throws Exception {
+        while (archivedIndex < target && !shuttingDown) {
+            int index = archivedIndex + 1;
+            MilestoneViewModel milestoneViewModel = MilestoneViewModel.get(tangle, index);
+            if (milestoneViewModel != null) {
+                long archived = tangle.archive(Transaction.class, confirmedBy(milestoneViewModel.getHash(), index));
+                log.debug("Archived {} transactions of milestone #{}.", archived, index);
+            }
+            archivedIndex = index;
+        }
+    }
+
+    /**
+     * @return the transactions first confirmed by the milestone {@code hash} with the index {@code index}, which
+     * are the approved transactions carrying its snapshot index
+     */
+    private Collection<Indexable> confirmedBy(Hash hash, int index) throws Exception {
+        List<Indexable> confirmed = new ArrayList<>();
+        Set<Hash> visited = new HashSet<>();
+        Deque<Hash> queue = new ArrayDeque<>();
+        queue.add(hash);
+        while (!queue.isEmpty()) {
+            Hash current = queue.poll();
+            if (current.equals(Hash.NULL_HASH) || !visited.add(current)
+                || TransactionViewModel.getSnapshotIndex(tangle, current) != index) {
+                continue;
+            }
+            confirmed.add(current);
+            Collections.addAll(queue, TransactionViewModel.getParentHashes(tangle, current));
+        }
+        return confirmed;
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -8,7 +8,9 @@ import com.iota.iri.network.TransactionRequester;
 import com.iota.iri.controllers.TransactionViewModel;
 import com.iota.iri.model.Hash;
 import com.iota.iri.zmq.MessageQ;
+import com.iota.iri.storage.DAGIndex;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.ParallelTraversal;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +43,7 @@ public class TransactionValidator {
     private final Object cascadeSync = new Object();
     private final Set<Hash> newSolidTransactionsOne = new LinkedHashSet<>();
     private final Set<Hash> newSolidTransactionsTwo = new LinkedHashSet<>();
+    private ParallelTraversal traversal = new ParallelTraversal(1);
 
     public TransactionValidator(Tangle tangle, TipsViewModel tipsViewModel, TransactionRequester transactionRequester,
                                 MessageQ messageQ, long snapshotTimestamp) {
@@ -64,6 +67,13 @@ public class TransactionValidator {
         newSolidThread.start();
     }
 
+    /**
+     * Makes {@link #checkSolidity} visit large levels of the past cone with {@code traversal}.
+     */
+    public void setTraversal(ParallelTraversal traversal) {
+        this.traversal = traversal;
+    }
+
     public void shutdown() throws InterruptedException {
         shuttingDown.set(true);
         newSolidThread.join();
@@ -123,30 +133,39 @@ public class TransactionValidator {
     private final AtomicInteger nextSubSolidGroup = new AtomicInteger(1);
 
     public boolean checkSolidity(Hash hash, boolean milestone) throws Exception {
-        if(TransactionViewModel.fromHash(tangle, hash).isSolid()) {
+        final DAGIndex dagIndex = tangle.getDAGIndex();
+        if(dagIndex.isSolid(hash) || TransactionViewModel.fromHash(tangle, hash).isSolid()) {
             return true;
         }
         Set<Hash> analyzedHashes = new HashSet<>(Collections.singleton(Hash.NULL_HASH));
-        boolean solid = true;
-        final Queue<Hash> nonAnalyzedTransactions = new LinkedList<>(Collections.singleton(hash));
-        Hash hashPointer;
-        while ((hashPointer = nonAnalyzedTransactions.poll()) != null) {
-            if (analyzedHashes.add(hashPointer)) {
-                final TransactionViewModel transaction = TransactionViewModel.fromHash(tangle, hashPointer);
-                if(!transaction.isSolid()) {
-                    if (transaction.getType() == TransactionViewModel.PREFILLED_SLOT && !hashPointer.equals(Hash.NULL_HASH)) {
-                        transactionRequester.requestTransaction(hashPointer, milestone);
-                        solid = false;
-                        break;
-                    } else {
-                        if (solid) {
-                            nonAnalyzedTransactions.offer(transaction.getTrunkTransactionHash());
-                            nonAnalyzedTransactions.offer(transaction.getBranchTransactionHash());
-                        }
-                    }
+        boolean solid = traversal.walk(Collections.singletonList(hash), analyzedHashes, (level, nonAnalyzedTransactions) -> {
+            final List<Hash> unindexed = new ArrayList<>();
+            for (Hash hashPointer : level) {
+                if (dagIndex.isSolid(hashPointer)) {
+                    continue;
+                }
+                Hash[] parents = dagIndex.getParents(hashPointer);
+                if (parents == null) {
+                    unindexed.add(hashPointer);
+                } else {
+                    nonAnalyzedTransactions.add(parents[0]);
+                    nonAnalyzedTransactions.add(parents[1]);
                 }
             }
-        }
+            for (final TransactionViewModel transaction : TransactionViewModel.fromHashes(tangle, unindexed).values()) {
+                if (transaction.isSolid()) {
+                    continue;
+                }
+                if (transaction.getType() == TransactionViewModel.PREFILLED_SLOT) {
+                    transactionRequester.requestTransaction(transaction.getHash(), milestone);
+                    return false;
+                }
+                transaction.index(tangle);
+                nonAnalyzedTransactions.add(transaction.getTrunkTransactionHash());
+                nonAnalyzedTransactions.add(transaction.getBranchTransactionHash());
+            }
+            return true;
+        });
         if (solid) {
             TransactionViewModel.updateSolidTransactions(tangle, analyzedHashes);
         }
@@ -182,7 +201,7 @@ public class TransactionValidator {
                     try {
                         Hash hash = cascadeIterator.next();
                         TransactionViewModel transaction = TransactionViewModel.fromHash(tangle, hash);
-                        Set<Hash> approvers = transaction.getApprovers(tangle).getHashes();
+                        Set<Hash> approvers = TransactionViewModel.getApproverHashes(tangle, hash);
                         for(Hash h: approvers) {
                             TransactionViewModel tx = TransactionViewModel.fromHash(tangle, h);
                             if(quietQuickSetSolid(tx)) {
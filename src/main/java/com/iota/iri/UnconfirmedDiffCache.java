@@ -0,0 +1,117 @@
+package com.iota.iri;
+
+import com.iota.iri.model.Hash;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes what {@link LedgerValidator#getLatestDiff} finds below a tip: every transaction it visits on its way down
+ * to the latest snapshot, and the value transactions of each valid bundle tail among them. Both only change when a
+ * milestone is applied, so every entry belongs to the snapshot index it was computed against, and all entries are
+ * dropped as soon as a newer index is seen.
+ *
+ * The cache is bounded by the number of hashes its entries hold and evicts in least recently used order.
+ */
+public class UnconfirmedDiffCache {
+
+    /**
+     * A non-zero value transaction of a bundle, as counted towards the balances.
+     */
+    static class Change {
+        final Hash transaction;
+        final Hash address;
+        final long value;
+
+        Change(Hash transaction, Hash address, long value) {
+            this.transaction = transaction;
+            this.address = address;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The subtangle below a tip, as seen from one snapshot index.
+     */
+    static class Entry {
+        final Set<Hash> visited;
+        // by bundle tail, only for bundles that move value
+        final Map<Hash, List<Change>> changes;
+        private final long weight;
+
+        Entry(Set<Hash> visited, Map<Hash, List<Change>> changes) {
+            this.visited = Collections.unmodifiableSet(visited);
+            this.changes = Collections.unmodifiableMap(changes);
+            this.weight = visited.size() + changes.values().stream().mapToLong(List::size).sum();
+        }
+    }
+
+    private final long capacity;
+    private final LinkedHashMap<Hash, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int snapshotIndex = -1;
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity the number of hashes the entries may hold in total, 0 or less disables the cache
+     */
+    public UnconfirmedDiffCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the entry of {@code tip} computed against {@code snapshotIndex}, or {@code null} if there is none
+     */
+    synchronized Entry get(Hash tip, int snapshotIndex) {
+        Entry entry = snapshotIndex == this.snapshotIndex ? entries.get(tip) : null;
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    synchronized void put(Hash tip, int snapshotIndex, Entry entry) {
+        // computed by a reader still pinned to an older snapshot
+        if (snapshotIndex < this.snapshotIndex || entry.weight > capacity) {
+            return;
+        }
+        if (snapshotIndex > this.snapshotIndex) {
+            clear();
+            this.snapshotIndex = snapshotIndex;
+        }
+        Entry previous = entries.put(tip, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (weight > capacity && iterator.hasNext()) {
+            weight -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drops every entry, to be called once a milestone is applied to the snapshot.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
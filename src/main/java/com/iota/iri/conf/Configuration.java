@@ -67,6 +67,31 @@ public class Configuration {
         DB_PATH,
         DB_LOG_PATH,
         DB_CACHE_SIZE,
+        DB_DEFAULT_PROFILE,
+        DB_TRANSACTION_PROFILE,
+        DB_TRANSACTION_METADATA_PROFILE,
+        DB_TRANSACTION_FLAGS_PROFILE,
+        DB_TRANSACTION_ARCHIVE_PROFILE,
+        DB_MILESTONE_PROFILE,
+        DB_STATE_DIFF_PROFILE,
+        DB_ADDRESS_PROFILE,
+        DB_APPROVEE_PROFILE,
+        DB_BUNDLE_PROFILE,
+        DB_TAG_PROFILE,
+        DB_GROUP_COMMIT_SIZE,
+        DB_GROUP_COMMIT_DELAY,
+        DB_SYNC_WRITES,
+        DB_STATISTICS_INTERVAL,
+        DB_READ_REPLICA,
+        DB_READ_REPLICA_REFRESH,
+        DB_ARCHIVE_DEPTH,
+        LOCAL_SNAPSHOT_INTERVAL,
+        TRANSACTION_CACHE_SIZE,
+        UNCONFIRMED_DIFF_CACHE_SIZE,
+        TRAVERSAL_THREADS,
+        MILESTONE_PIPELINE_DEPTH,
+        MILESTONE_VALIDATION_THREADS,
+        DAG_INDEX_SIZE,
         P_REMOVE_REQUEST,
         P_DROP_TRANSACTION,
         P_SELECT_MILESTONE_CHILD,
@@ -123,6 +148,32 @@ public class Configuration {
         conf.put(DefaultConfSettings.DB_PATH.name(), "mainnetdb");
         conf.put(DefaultConfSettings.DB_LOG_PATH.name(), "mainnet.log");
         conf.put(DefaultConfSettings.DB_CACHE_SIZE.name(), "100000"); //KB
+        // column family tuning overriding the defaults of the family, e.g. write_buffer_size=8192,compression=none
+        conf.put(DefaultConfSettings.DB_DEFAULT_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_TRANSACTION_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_TRANSACTION_METADATA_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_TRANSACTION_FLAGS_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_TRANSACTION_ARCHIVE_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_MILESTONE_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_STATE_DIFF_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_ADDRESS_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_APPROVEE_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_BUNDLE_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_TAG_PROFILE.name(), "");
+        conf.put(DefaultConfSettings.DB_GROUP_COMMIT_SIZE.name(), "1"); //writes, 1 disables group commit; above 1 a crash loses up to DB_GROUP_COMMIT_DELAY of writes
+        conf.put(DefaultConfSettings.DB_GROUP_COMMIT_DELAY.name(), "50"); //ms
+        conf.put(DefaultConfSettings.DB_SYNC_WRITES.name(), "false");
+        conf.put(DefaultConfSettings.DB_STATISTICS_INTERVAL.name(), "60"); //s, 0 disables statistics
+        conf.put(DefaultConfSettings.DB_READ_REPLICA.name(), "false");
+        conf.put(DefaultConfSettings.DB_READ_REPLICA_REFRESH.name(), "60"); //s, must be positive; each refresh briefly holds two replicas, doubling their cache and open files, and starts cold
+        conf.put(DefaultConfSettings.DB_ARCHIVE_DEPTH.name(), "0"); //milestones, 0 disables archiving
+        conf.put(DefaultConfSettings.LOCAL_SNAPSHOT_INTERVAL.name(), "1000"); //milestones, 0 disables local snapshots
+        conf.put(DefaultConfSettings.TRANSACTION_CACHE_SIZE.name(), "100000"); //KB
+        conf.put(DefaultConfSettings.UNCONFIRMED_DIFF_CACHE_SIZE.name(), "250000"); //hashes, 0 disables the cache
+        conf.put(DefaultConfSettings.TRAVERSAL_THREADS.name(), "0"); //0 uses one per processor, 1 walks on the calling thread
+        conf.put(DefaultConfSettings.MILESTONE_PIPELINE_DEPTH.name(), "4"); //milestones prepared ahead, 0 applies them one at a time
+        conf.put(DefaultConfSettings.MILESTONE_VALIDATION_THREADS.name(), "0"); //0 uses one per processor
+        conf.put(DefaultConfSettings.DAG_INDEX_SIZE.name(), "500000"); //transactions
         conf.put(DefaultConfSettings.CONFIG.name(), "iota.ini");
         conf.put(DefaultConfSettings.P_REMOVE_REQUEST.name(), "0.01");
         conf.put(DefaultConfSettings.P_DROP_TRANSACTION.name(), "0.0");
@@ -3,94 +3,68 @@ package com.iota.iri.controllers;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.IntegerIndex;
 import com.iota.iri.model.Milestone;
-import com.iota.iri.storage.Indexable;
-import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.MilestoneIndex;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.utils.Pair;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * Created by paul on 4/11/17.
  */
 public class MilestoneViewModel {
     private final Milestone milestone;
-    private static final Map<Integer, MilestoneViewModel> milestones = new ConcurrentHashMap<>();
 
     private MilestoneViewModel(final Milestone milestone) {
         this.milestone = milestone;
     }
 
-    public static void clear() {
-        milestones.clear();
-    }
-
     public MilestoneViewModel(final int index, final Hash milestoneHash) {
         this.milestone = new Milestone();
         this.milestone.index = new IntegerIndex(index);
         milestone.hash = milestoneHash;
     }
 
+    private static MilestoneIndex index(Tangle tangle) throws Exception {
+        MilestoneIndex milestoneIndex = tangle.getMilestoneIndex();
+        milestoneIndex.load(tangle);
+        return milestoneIndex;
+    }
+
+    private static MilestoneViewModel fromIndex(Pair<Integer, Hash> milestone) {
+        return milestone == null ? null : new MilestoneViewModel(milestone.low, milestone.hi);
+    }
+
     public static MilestoneViewModel get(Tangle tangle, int index) throws Exception {
-        MilestoneViewModel milestoneViewModel = milestones.get(index);
-        if(milestoneViewModel == null && load(tangle, index)) {
-            milestoneViewModel = milestones.get(index);
-        }
-        return milestoneViewModel;
+        Hash hash = index(tangle).get(index);
+        return hash == null ? null : new MilestoneViewModel(index, hash);
     }
 
     public static boolean load(Tangle tangle, int index) throws Exception {
         Milestone milestone = (Milestone) tangle.load(Milestone.class, new IntegerIndex(index));
         if(milestone != null && milestone.hash != null) {
-            milestones.put(index, new MilestoneViewModel(milestone));
+            tangle.getMilestoneIndex().put(index, milestone.hash);
             return true;
         }
         return false;
     }
 
     public static MilestoneViewModel first(Tangle tangle) throws Exception {
-        Pair<Indexable, Persistable> milestonePair = tangle.getFirst(Milestone.class, IntegerIndex.class);
-        if(milestonePair != null && milestonePair.hi != null) {
-            Milestone milestone = (Milestone) milestonePair.hi;
-            return new MilestoneViewModel(milestone);
-        }
-        return null;
+        return fromIndex(index(tangle).first());
     }
 
     public static MilestoneViewModel latest(Tangle tangle) throws Exception {
-        Pair<Indexable, Persistable> milestonePair = tangle.getLatest(Milestone.class, IntegerIndex.class);
-        if(milestonePair != null && milestonePair.hi != null) {
-            Milestone milestone = (Milestone) milestonePair.hi;
-            return new MilestoneViewModel(milestone);
-        }
-        return null;
+        return fromIndex(index(tangle).latest());
     }
 
     public MilestoneViewModel previous(Tangle tangle) throws Exception {
-        Pair<Indexable, Persistable> milestonePair = tangle.previous(Milestone.class, this.milestone.index);
-        if(milestonePair != null && milestonePair.hi != null) {
-            Milestone milestone = (Milestone) milestonePair.hi;
-            return new MilestoneViewModel((Milestone) milestone);
-        }
-        return null;
+        return fromIndex(index(tangle).lower(index()));
     }
 
     public MilestoneViewModel next(Tangle tangle) throws Exception {
-        Pair<Indexable, Persistable> milestonePair = tangle.next(Milestone.class, this.milestone.index);
-        if(milestonePair != null && milestonePair.hi != null) {
-            Milestone milestone = (Milestone) milestonePair.hi;
-            return new MilestoneViewModel((Milestone) milestone);
-        }
-        return null;
+        return fromIndex(index(tangle).higher(index()));
     }
 
     public static MilestoneViewModel findClosestPrevMilestone(Tangle tangle, int index) throws Exception {
-        Pair<Indexable, Persistable> milestonePair = tangle.previous(Milestone.class, new IntegerIndex(index));
-        if(milestonePair != null && milestonePair.hi != null) {
-            return new MilestoneViewModel((Milestone) milestonePair.hi);
-        }
-        return null;
+        return fromIndex(index(tangle).lower(index));
     }
 
     public static MilestoneViewModel findClosestNextMilestone(Tangle tangle, int index, boolean testnet,
@@ -98,11 +72,7 @@ public class MilestoneViewModel {
         if(!testnet && index <= milestoneStartIndex) {
             return first(tangle);
         }
-        Pair<Indexable, Persistable> milestonePair = tangle.next(Milestone.class, new IntegerIndex(index));
-        if(milestonePair != null && milestonePair.hi != null) {
-            return new MilestoneViewModel((Milestone) milestonePair.hi);
-        }
-        return null;
+        return fromIndex(index(tangle).higher(index));
     }
 
     public boolean store(Tangle tangle) throws Exception {
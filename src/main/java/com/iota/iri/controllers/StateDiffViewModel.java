@@ -30,11 +30,11 @@ public class StateDiffViewModel {
 
     StateDiffViewModel(final StateDiff diff, final Hash hash) {
         this.hash = hash;
-        this.stateDiff = diff == null || diff.state == null ? new StateDiff(): diff;
+        this.stateDiff = diff == null ? new StateDiff(): diff;
     }
 
     public boolean isEmpty() {
-        return stateDiff == null || stateDiff.state == null || stateDiff.state.size() == 0;
+        return stateDiff == null || stateDiff.isEmpty();
     }
 
     public Hash getHash() {
@@ -42,7 +42,14 @@ public class StateDiffViewModel {
     }
 
     public Map<Hash, Long> getDiff() {
-        return stateDiff.state;
+        return stateDiff.getState();
+    }
+
+    /**
+     * Passes every balance change to {@code consumer} without decoding the diff into a map.
+     */
+    public void forEach(StateDiff.DeltaConsumer consumer) {
+        stateDiff.forEach(consumer);
     }
 
     public boolean store(Tangle tangle) throws Exception {
@@ -3,6 +3,7 @@ package com.iota.iri.controllers;
 import java.util.*;
 
 import com.iota.iri.model.*;
+import com.iota.iri.storage.DAGIndex;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.Tangle;
@@ -69,12 +70,106 @@ public class TransactionViewModel {
         return transactionViewModel;
     }
 
+    /**
+     * Resolves a hash truncated to its first bytes, as sent in transaction requests. Hashes of transactions with
+     * enough weight end in zero bytes, so the zero padded hash is tried before seeking the first stored match.
+     */
+    public static TransactionViewModel fromShortHash(Tangle tangle, byte[] shortHash) throws Exception {
+        Hash padded = new Hash(shortHash, 0, shortHash.length);
+        // a single load, which may be served by the transaction cache, resolves the common case
+        TransactionViewModel transactionViewModel = fromHash(tangle, padded);
+        if (shortHash.length >= Hash.SIZE_IN_BYTES || transactionViewModel.getType() != PREFILLED_SLOT) {
+            return transactionViewModel;
+        }
+        Indexable hash = tangle.firstKeyStartingWith(Transaction.class, shortHash);
+        return hash == null ? transactionViewModel : fromHash(tangle, (Hash) hash);
+    }
+
     public static TransactionViewModel fromHash(Tangle tangle, final Hash hash) throws Exception {
         TransactionViewModel transactionViewModel = new TransactionViewModel((Transaction) tangle.load(Transaction.class, hash), hash);
         fillMetadata(tangle, transactionViewModel);
         return transactionViewModel;
     }
 
+    /**
+     * Loads several transactions with a single batched read, keyed in the order of {@code hashes}.
+     */
+    public static Map<Hash, TransactionViewModel> fromHashes(Tangle tangle, Collection<Hash> hashes) throws Exception {
+        Map<Indexable, Persistable> transactions = tangle.loadBatch(Transaction.class, new ArrayList<>(hashes));
+        Map<Hash, TransactionViewModel> transactionViewModels = new LinkedHashMap<>(hashes.size() * 2);
+        for (Hash hash : hashes) {
+            TransactionViewModel transactionViewModel = new TransactionViewModel((Transaction) transactions.get(hash), hash);
+            fillMetadata(tangle, transactionViewModel);
+            transactionViewModels.put(hash, transactionViewModel);
+        }
+        return transactionViewModels;
+    }
+
+    /**
+     * Adds those of {@code hashes} that are missing from the DAG index, reading only their metadata in one batch.
+     */
+    public static void indexAll(Tangle tangle, Collection<Hash> hashes) throws Exception {
+        DAGIndex dagIndex = tangle.getDAGIndex();
+        if (!dagIndex.isEnabled()) {
+            return;
+        }
+        List<Indexable> missing = new ArrayList<>();
+        for (Hash hash : hashes) {
+            if (!Hash.NULL_HASH.equals(hash) && dagIndex.getSnapshotIndex(hash) == DAGIndex.UNKNOWN) {
+                missing.add(hash);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Indexable, Persistable> entry : tangle.loadMetadataBatch(Transaction.class, missing).entrySet()) {
+            Transaction transaction = (Transaction) entry.getValue();
+            if (transaction.parsed && transaction.type == FILLED_SLOT) {
+                dagIndex.add((Hash) entry.getKey(), transaction.trunk, transaction.branch, transaction.snapshot,
+                        transaction.solid, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the approvers of {@code hash} from the DAG index, loading and indexing them on a miss.
+     */
+    public static Set<Hash> getApproverHashes(Tangle tangle, Hash hash) throws Exception {
+        Set<Hash> approvers = tangle.getDAGIndex().getApprovers(hash);
+        if (approvers == null) {
+            TransactionViewModel transactionViewModel = fromHash(tangle, hash);
+            approvers = transactionViewModel.getApprovers(tangle).getHashes();
+            transactionViewModel.index(tangle);
+        }
+        return approvers;
+    }
+
+    /**
+     * Returns {trunk, branch} of {@code hash} from the DAG index, loading and indexing the transaction on a miss.
+     */
+    public static Hash[] getParentHashes(Tangle tangle, Hash hash) throws Exception {
+        Hash[] parents = tangle.getDAGIndex().getParents(hash);
+        if (parents == null) {
+            TransactionViewModel transactionViewModel = fromHash(tangle, hash);
+            parents = new Hash[]{transactionViewModel.getTrunkTransactionHash(), transactionViewModel.getBranchTransactionHash()};
+            transactionViewModel.index(tangle);
+        }
+        return parents;
+    }
+
+    /**
+     * Returns the snapshot index of {@code hash} from the DAG index, loading and indexing the transaction on a miss.
+     */
+    public static int getSnapshotIndex(Tangle tangle, Hash hash) throws Exception {
+        int snapshotIndex = tangle.getDAGIndex().getSnapshotIndex(hash);
+        if (snapshotIndex == DAGIndex.UNKNOWN) {
+            TransactionViewModel transactionViewModel = fromHash(tangle, hash);
+            snapshotIndex = transactionViewModel.snapshotIndex();
+            transactionViewModel.index(tangle);
+        }
+        return snapshotIndex;
+    }
+
     public static boolean mightExist(Tangle tangle, Hash hash) throws Exception {
         return tangle.maybeHas(Transaction.class, hash);
     }
@@ -126,7 +221,20 @@ public class TransactionViewModel {
         if(hash.equals(Hash.NULL_HASH)) {
             return false;
         }
-        return tangle.update(transaction, hash, item);
+        boolean success = tangle.update(transaction, hash, item);
+        tangle.getDAGIndex().update(hash, transaction.snapshot, transaction.solid);
+        return success;
+    }
+
+    /**
+     * Adds this transaction to the DAG index, together with its approvers if they have already been loaded.
+     */
+    public void index(Tangle tangle) throws Exception {
+        if (getType() == PREFILLED_SLOT || hash.equals(Hash.NULL_HASH)) {
+            return;
+        }
+        tangle.getDAGIndex().add(hash, getTrunkTransactionHash(), getBranchTransactionHash(), snapshotIndex(), isSolid(),
+                approovers == null ? null : approovers.getHashes());
     }
 
     public TransactionViewModel getBranchTransaction(Tangle tangle) throws Exception {
@@ -206,7 +314,12 @@ public class TransactionViewModel {
         if (exists(tangle, hash)) {
             return false;
         }
-        return tangle.saveBatch(batch);
+        boolean stored = tangle.saveBatch(batch);
+        if (tangle.getDAGIndex().isEnabled()) {
+            getApprovers(tangle);
+            index(tangle);
+        }
+        return stored;
     }
 
     public ApproveeViewModel getApprovers(Tangle tangle) throws Exception {
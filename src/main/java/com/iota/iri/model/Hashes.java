@@ -1,10 +1,8 @@
 package com.iota.iri.model;
 
 import com.iota.iri.storage.Persistable;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.io.Serializable;
-import java.util.HashSet;
+import java.nio.ByteBuffer;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -13,20 +11,26 @@ import java.util.Set;
  */
 public class Hashes implements Persistable {
     public Set<Hash> set = new LinkedHashSet<>();
-    private static final byte delimiter = ",".getBytes()[0];
 
+    /**
+     * Encodes the set as a member count followed by the fixed width members.
+     */
     public byte[] bytes() {
-        return set.parallelStream()
-                .map(Hash::bytes)
-                .reduce((a,b) -> ArrayUtils.addAll(ArrayUtils.add(a, delimiter), b))
-                .orElse(new byte[0]);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + set.size() * Hash.SIZE_IN_BYTES);
+        buffer.putInt(set.size());
+        for (Hash hash : set) {
+            buffer.put(hash.bytes());
+        }
+        return buffer.array();
     }
 
     public void read(byte[] bytes) {
-        if(bytes != null) {
-            set = new LinkedHashSet<>(bytes.length / (1 + Hash.SIZE_IN_BYTES) + 1);
-            for (int i = 0; i < bytes.length; i += 1 + Hash.SIZE_IN_BYTES) {
-                set.add(new Hash(bytes, i, Hash.SIZE_IN_BYTES));
+        if(bytes != null && bytes.length >= Integer.BYTES) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int count = Math.min(buffer.getInt(), buffer.remaining() / Hash.SIZE_IN_BYTES);
+            set = new LinkedHashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                set.add(new Hash(bytes, buffer.position() + i * Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES));
             }
         }
     }
@@ -1,33 +1,137 @@
 package com.iota.iri.model;
 
 import com.iota.iri.storage.Persistable;
-import com.iota.iri.utils.Serializer;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.io.Serializable;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Created by paul on 5/6/17.
+ *
+ * Stored as a format byte and the number of entries, followed by each address and its balance change as a zigzag
+ * varint. Diffs written by older versions are a plain sequence of addresses and 8 byte balance changes; they are
+ * still read, and rewritten in the current format when they are stored again.
+ *
+ * A diff that was read is decoded on first use, and {@link #forEach} walks the stored bytes without decoding them
+ * into a map at all.
  */
 public class StateDiff implements Persistable {
+    // outside the -121..121 range of the bytes of a hash, so it never starts a diff in the legacy format
+    private static final byte FORMAT_VARINT = (byte) 0x81;
+    private static final int LEGACY_ENTRY_SIZE = Hash.SIZE_IN_BYTES + Long.BYTES;
+
     public Map<Hash, Long> state;
+    private byte[] stored;
+
+    public interface DeltaConsumer {
+        void accept(Hash address, long delta);
+    }
 
     public byte[] bytes() {
-        return state.entrySet().parallelStream()
-                .map(entry -> ArrayUtils.addAll(entry.getKey().bytes(), Serializer.serialize(entry.getValue())))
-                .reduce(ArrayUtils::addAll)
-                .orElse(new byte[0]);
+        Map<Hash, Long> diff = getState();
+        int size = 1 + varintSize(diff.size());
+        for (Long delta : diff.values()) {
+            size += Hash.SIZE_IN_BYTES + varintSize(zigzag(delta));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_VARINT);
+        putVarint(buffer, diff.size());
+        for (Map.Entry<Hash, Long> entry : diff.entrySet()) {
+            buffer.put(entry.getKey().bytes(), 0, Hash.SIZE_IN_BYTES);
+            putVarint(buffer, zigzag(entry.getValue()));
+        }
+        return buffer.array();
     }
+
     public void read(byte[] bytes) {
-        int i;
-        state = new HashMap<>();
-        if(bytes != null) {
-            for (i = 0; i < bytes.length; i += Hash.SIZE_IN_BYTES + Long.BYTES) {
-                state.put(new Hash(bytes, i, Hash.SIZE_IN_BYTES),
-                        Serializer.getLong(Arrays.copyOfRange(bytes, i + Hash.SIZE_IN_BYTES, i + Hash.SIZE_IN_BYTES + Long.BYTES)));
+        state = null;
+        stored = bytes;
+    }
+
+    /**
+     * @return the balance changes by address, decoded from the stored bytes on first use
+     */
+    public Map<Hash, Long> getState() {
+        if (state == null) {
+            Map<Hash, Long> decoded = new HashMap<>();
+            forEach(decoded::put);
+            state = decoded;
+        }
+        return state;
+    }
+
+    public boolean isEmpty() {
+        if (state != null) {
+            return state.isEmpty();
+        }
+        if (stored == null || stored.length == 0) {
+            return true;
+        }
+        if (stored[0] != FORMAT_VARINT) {
+            return stored.length < LEGACY_ENTRY_SIZE;
+        }
+        return getVarint(ByteBuffer.wrap(stored, 1, stored.length - 1)) == 0;
+    }
+
+    /**
+     * Passes every balance change to {@code consumer}, straight from the stored bytes if the diff was read.
+     */
+    public void forEach(DeltaConsumer consumer) {
+        if (state != null) {
+            state.forEach(consumer::accept);
+            return;
+        }
+        if (stored == null || stored.length == 0) {
+            return;
+        }
+        if (stored[0] == FORMAT_VARINT) {
+            ByteBuffer buffer = ByteBuffer.wrap(stored, 1, stored.length - 1);
+            long count = getVarint(buffer);
+            for (long i = 0; i < count; i++) {
+                Hash address = new Hash(stored, buffer.position(), Hash.SIZE_IN_BYTES);
+                buffer.position(buffer.position() + Hash.SIZE_IN_BYTES);
+                consumer.accept(address, unzigzag(getVarint(buffer)));
+            }
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(stored);
+            for (int i = 0; i + LEGACY_ENTRY_SIZE <= stored.length; i += LEGACY_ENTRY_SIZE) {
+                consumer.accept(new Hash(stored, i, Hash.SIZE_IN_BYTES), buffer.getLong(i + Hash.SIZE_IN_BYTES));
+            }
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
             }
         }
     }
@@ -11,6 +11,7 @@ import java.nio.ByteBuffer;
  */
 public class Transaction implements Persistable {
     public static final int SIZE = 1604;
+    private static final int FLAGS_SIZE = Integer.BYTES + Long.BYTES * 2 + 1 + Integer.BYTES; //validity,arrivalTime,height,solid,snapshot
 
     public byte[] bytes;
 
@@ -144,6 +145,36 @@ public class Transaction implements Persistable {
         }
     }
 
+    /**
+     * The fields that change after a transaction is stored, kept apart from the write-once {@link #metadata()} so
+     * they can be rewritten without it. A stored record takes precedence over the values in the metadata.
+     */
+    public byte[] flags() {
+        byte[] senderBytes = sender.getBytes();
+        ByteBuffer buffer = ByteBuffer.allocate(FLAGS_SIZE + senderBytes.length);
+        buffer.putInt(validity);
+        buffer.putLong(arrivalTime);
+        buffer.putLong(height);
+        buffer.put((byte) (solid ? 1 : 0));
+        buffer.putInt(snapshot);
+        buffer.put(senderBytes);
+        return buffer.array();
+    }
+
+    public void readFlags(byte[] bytes) {
+        if(bytes != null && bytes.length >= FLAGS_SIZE) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            validity = buffer.getInt();
+            arrivalTime = buffer.getLong();
+            height = buffer.getLong();
+            solid = buffer.get() == 1;
+            snapshot = buffer.getInt();
+            byte[] senderBytes = new byte[buffer.remaining()];
+            buffer.get(senderBytes);
+            sender = new String(senderBytes);
+        }
+    }
+
     @Override
     public boolean merge() {
         return false;
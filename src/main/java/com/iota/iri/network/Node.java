@@ -392,6 +392,7 @@ public class Node {
             receivedTransactionViewModel.setArrivalTime(System.currentTimeMillis());
             try {
                 transactionValidator.updateStatus(receivedTransactionViewModel);
+                milestone.addMilestoneCandidate(receivedTransactionViewModel);
                 receivedTransactionViewModel.updateSender(neighbor.getAddress().toString());
                 receivedTransactionViewModel.update(tangle, "arrivalTime|sender");
             } catch (Exception e) {
@@ -427,7 +428,7 @@ public class Node {
             //find requested trytes
             try {
                 //transactionViewModel = TransactionViewModel.find(Arrays.copyOf(requestedHash.bytes(), TransactionRequester.REQUEST_HASH_SIZE));
-                transactionViewModel = TransactionViewModel.fromHash(tangle, new Hash(requestedHash.bytes(), 0, reqHashSize));
+                transactionViewModel = TransactionViewModel.fromShortHash(tangle, Arrays.copyOf(requestedHash.bytes(), reqHashSize));
                 //log.debug("Requested Hash: " + requestedHash + " \nFound: " + transactionViewModel.getHash());
             } catch (Exception e) {
                 log.error("Error while searching for transaction.", e);
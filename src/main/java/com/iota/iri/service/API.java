@@ -16,6 +16,7 @@ import com.iota.iri.hash.SpongeFactory;
 import com.iota.iri.model.Hash;
 import com.iota.iri.network.Neighbor;
 import com.iota.iri.service.dto.*;
+import com.iota.iri.storage.DatabaseStatistics;
 import com.iota.iri.utils.Converter;
 import com.iota.iri.utils.MapIdentityManager;
 import io.undertow.Undertow;
@@ -277,7 +278,16 @@ public class API {
                             instance.milestone.latestSolidSubtangleMilestone, instance.milestone.latestSolidSubtangleMilestoneIndex,
                             instance.node.howManyNeighbors(), instance.node.queuedTransactionsSize(),
                             System.currentTimeMillis(), instance.tipsViewModel.size(),
-                            instance.transactionRequester.numberOfTransactionsToRequest());
+                            instance.transactionRequester.numberOfTransactionsToRequest(),
+                            instance.tangle.getTransactionCache().getHits(), instance.tangle.getTransactionCache().getMisses(),
+                            instance.tangle.getTransactionCache().getEvictions());
+                }
+                case "getDatabaseStats": {
+                    DatabaseStatistics statistics = instance.tangle.getStatistics();
+                    if (statistics == null) {
+                        return ErrorResponse.create("No database statistics available.");
+                    }
+                    return GetDatabaseStatsResponse.create(statistics);
                 }
                 case "getTips": {
                     return getTipsStatement();
@@ -459,15 +469,12 @@ public class API {
         }
 
         if (state) {
-            instance.milestone.latestSnapshot.rwlock.readLock().lock();
-            try {
+            try (Snapshot.Pin pin = instance.milestone.latestSnapshot.pin()) {
 
                 if (!instance.ledgerValidator.checkConsistency(transactions)) {
                     state = false;
                     info = "tails are not consistent (would lead to inconsistent ledger state)";
                 }
-            } finally {
-                instance.milestone.latestSnapshot.rwlock.readLock().unlock();
             }
         }
 
@@ -553,10 +560,14 @@ public class API {
         return RemoveNeighborsResponse.create(numberOfRemovedNeighbors);
     }
 
+    // served from the read replica if configured, transactions it has not caught up with are read from the primary
     private synchronized AbstractResponse getTrytesStatement(List<String> hashes) throws Exception {
         final List<String> elements = new LinkedList<>();
         for (final String hash : hashes) {
-            final TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.tangle, new Hash(hash));
+            TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(instance.readTangle, new Hash(hash));
+            if (instance.readTangle != instance.tangle && transactionViewModel.getType() == TransactionViewModel.PREFILLED_SLOT) {
+                transactionViewModel = TransactionViewModel.fromHash(instance.tangle, new Hash(hash));
+            }
             if (transactionViewModel != null) {
                 elements.add(Converter.trytes(transactionViewModel.trits()));
             }
@@ -606,8 +617,7 @@ public class API {
             }
         }
 
-        instance.milestone.latestSnapshot.rwlock.readLock().lock();
-        try {
+        try (Snapshot.Pin pin = instance.milestone.latestSnapshot.pin()) {
             Set<Hash> visitedHashes = new HashSet<>();
             Map<Hash, Long> diff = new HashMap<>();
             for (int i = 0; i < tipsToApprove; i++) {
@@ -630,8 +640,6 @@ public class API {
             if (instance.ledgerValidator.checkConsistency(Arrays.asList(tips))) {
                 return tips;
             }
-        } finally {
-            instance.milestone.latestSnapshot.rwlock.readLock().unlock();
         }
         throw new RuntimeException("inconsistent tips pair selected");
     }
@@ -655,6 +663,7 @@ public class API {
             if(transactionViewModel.store(instance.tangle)) {
                 transactionViewModel.setArrivalTime(System.currentTimeMillis() / 1000L);
                 instance.transactionValidator.updateStatus(transactionViewModel);
+                instance.milestone.addMilestoneCandidate(transactionViewModel);
                 transactionViewModel.updateSender("local");
                 transactionViewModel.update(instance.tangle, "sender");
             }
@@ -665,6 +674,8 @@ public class API {
         return GetNeighborsResponse.create(instance.node.getNeighbors());
     }
 
+    // confirmations are checked against the primary database: clients pass the latest milestone of getNodeInfo as a
+    // tip, which the read replica may not have caught up with yet
     private AbstractResponse getNewInclusionStateStatement(final List<String> trans, final List<String> tps) throws Exception {
         final List<Hash> transactions = trans.stream().map(Hash::new).collect(Collectors.toList());
         final List<Hash> tips = tps.stream().map(Hash::new).collect(Collectors.toList());
@@ -761,6 +772,7 @@ public class API {
         return true;
     }
 
+    // served from the read replica if configured, which can miss transactions stored within the last refresh interval
     private synchronized AbstractResponse findTransactionStatement(final Map<String, Object> request) throws Exception {
         final Set<Hash> foundTransactions =  new HashSet<>();
         boolean containsKey = false;
@@ -769,7 +781,7 @@ public class API {
         if (request.containsKey("bundles")) {
             final HashSet<String> bundles = getParameterAsSet(request,"bundles",HASH_SIZE);
             for (final String bundle : bundles) {
-                bundlesTransactions.addAll(BundleViewModel.load(instance.tangle, new Hash(bundle)).getHashes());
+                bundlesTransactions.addAll(BundleViewModel.load(instance.readTangle, new Hash(bundle)).getHashes());
             }
             foundTransactions.addAll(bundlesTransactions);
             containsKey = true;
@@ -779,7 +791,7 @@ public class API {
         if (request.containsKey("addresses")) {
             final HashSet<String> addresses = getParameterAsSet(request,"addresses",HASH_SIZE);
             for (final String address : addresses) {
-                addressesTransactions.addAll(AddressViewModel.load(instance.tangle, new Hash(address)).getHashes());
+                addressesTransactions.addAll(AddressViewModel.load(instance.readTangle, new Hash(address)).getHashes());
             }
             foundTransactions.addAll(addressesTransactions);
             containsKey = true;
@@ -790,7 +802,7 @@ public class API {
             final HashSet<String> tags = getParameterAsSet(request,"tags",0);
             for (String tag : tags) {
                 tag = padTag(tag);
-                tagsTransactions.addAll(TagViewModel.load(instance.tangle, new Hash(tag)).getHashes());
+                tagsTransactions.addAll(TagViewModel.load(instance.readTangle, new Hash(tag)).getHashes());
             }
             foundTransactions.addAll(tagsTransactions);
             containsKey = true;
@@ -801,7 +813,7 @@ public class API {
         if (request.containsKey("approvees")) {
             final HashSet<String> approvees = getParameterAsSet(request,"approvees",HASH_SIZE);
             for (final String approvee : approvees) {
-                approveeTransactions.addAll(TransactionViewModel.fromHash(instance.tangle, new Hash(approvee)).getApprovers(instance.tangle).getHashes());
+                approveeTransactions.addAll(TransactionViewModel.fromHash(instance.readTangle, new Hash(approvee)).getApprovers(instance.readTangle).getHashes());
             }
             foundTransactions.addAll(approveeTransactions);
             containsKey = true;
@@ -880,15 +892,15 @@ public class API {
                 .collect(Collectors.toCollection(LinkedList::new));
         final List<Hash> hashes;
         final Map<Hash, Long> balances = new HashMap<>();
-        instance.milestone.latestSnapshot.rwlock.readLock().lock();
-        final int index = instance.milestone.latestSnapshot.index();
+        final int index;
         if (tips == null || tips.size() == 0) {
             hashes = Collections.singletonList(instance.milestone.latestSolidSubtangleMilestone);
         } else {
             hashes = tips.stream().map(address -> (new Hash(address)))
                     .collect(Collectors.toCollection(LinkedList::new));
         }
-        try {
+        try (Snapshot.Pin pin = instance.milestone.latestSnapshot.pin()) {
+            index = instance.milestone.latestSnapshot.index();
             for (final Hash address : addresses) {
                 Long value = instance.milestone.latestSnapshot.getBalance(address);
                 if (value == null) {
@@ -911,8 +923,6 @@ public class API {
                 }
             }
             diff.forEach((key, value) -> balances.computeIfPresent(key, (hash, aLong) -> value + aLong));
-        } finally {
-            instance.milestone.latestSnapshot.rwlock.readLock().unlock();
         }
 
         final List<String> elements = addresses.stream().map(address -> balances.get(address).toString())
@@ -207,7 +207,7 @@ public class TipsManager {
 
         while (tip != null) {
             transactionViewModel = TransactionViewModel.fromHash(tangle, tip);
-            tipSet = transactionViewModel.getApprovers(tangle).getHashes();
+            tipSet = TransactionViewModel.getApproverHashes(tangle, tip);
             if (transactionViewModel.getCurrentIndex() == 0) {
                 if (transactionViewModel.getType() == TransactionViewModel.PREFILLED_SLOT) {
                     log.info("Reason to stop: transactionViewModel == null");
@@ -301,9 +301,8 @@ public class TipsManager {
         boolean addedBack;
         while (!hashesToRate.empty()) {
             currentHash = hashesToRate.pop();
-            TransactionViewModel transactionViewModel = TransactionViewModel.fromHash(tangle, currentHash);
             addedBack = false;
-            Set<Hash> approvers = transactionViewModel.getApprovers(tangle).getHashes();
+            Set<Hash> approvers = TransactionViewModel.getApproverHashes(tangle, currentHash);
             for (Hash approver : approvers) {
                 if (ratings.get(approver) == null && !approver.equals(currentHash)) {
                     if (!addedBack) {
@@ -370,7 +369,7 @@ public class TipsManager {
 
     boolean belowMaxDepth(Hash tip, int depth, Set<Hash> maxDepthOk) throws Exception {
         //if tip is confirmed stop
-        if (TransactionViewModel.fromHash(tangle, tip).snapshotIndex() >= depth) {
+        if (TransactionViewModel.getSnapshotIndex(tangle, tip) >= depth) {
             return false;
         }
         //if tip unconfirmed, check if any referenced tx is confirmed below maxDepth
@@ -379,17 +378,18 @@ public class TipsManager {
         Hash hash;
         while ((hash = nonAnalyzedTransactions.poll()) != null) {
             if (analyzedTranscations.add(hash)) {
-                TransactionViewModel transaction = TransactionViewModel.fromHash(tangle, hash);
-                if (transaction.snapshotIndex() != 0 && transaction.snapshotIndex() < depth) {
+                int snapshotIndex = TransactionViewModel.getSnapshotIndex(tangle, hash);
+                if (snapshotIndex != 0 && snapshotIndex < depth) {
                     return true;
                 }
-                if (transaction.snapshotIndex() == 0) {
+                if (snapshotIndex == 0) {
                     if (maxDepthOk.contains(hash)) {
                         //log.info("Memoization!");
                     }
                     else {
-                        nonAnalyzedTransactions.offer(transaction.getTrunkTransactionHash());
-                        nonAnalyzedTransactions.offer(transaction.getBranchTransactionHash());
+                        Hash[] parents = TransactionViewModel.getParentHashes(tangle, hash);
+                        nonAnalyzedTransactions.offer(parents[0]);
+                        nonAnalyzedTransactions.offer(parents[1]);
                     }
                 }
             }
@@ -0,0 +1,38 @@
+package com.iota.iri.service.dto;
+
+import com.iota.iri.storage.DatabaseStatistics;
+
+import java.util.Map;
+
+public class GetDatabaseStatsResponse extends AbstractResponse {
+
+    private Map<String, Long> tickers;
+    private Map<String, Map<String, Double>> histograms;
+    private Map<String, Long> database;
+    private Map<String, Map<String, Long>> columnFamilies;
+
+    public static AbstractResponse create(DatabaseStatistics statistics) {
+        GetDatabaseStatsResponse res = new GetDatabaseStatsResponse();
+        res.tickers = statistics.getTickers();
+        res.histograms = statistics.getHistograms();
+        res.database = statistics.getDatabase();
+        res.columnFamilies = statistics.getColumnFamilies();
+        return res;
+    }
+
+    public Map<String, Long> getTickers() {
+        return tickers;
+    }
+
+    public Map<String, Map<String, Double>> getHistograms() {
+        return histograms;
+    }
+
+    public Map<String, Long> getDatabase() {
+        return database;
+    }
+
+    public Map<String, Map<String, Long>> getColumnFamilies() {
+        return columnFamilies;
+    }
+}
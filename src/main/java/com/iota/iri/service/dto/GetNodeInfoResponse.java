@@ -24,11 +24,16 @@ public class GetNodeInfoResponse extends AbstractResponse {
     private int tips;
     private int transactionsToRequest;
 
+    private long transactionCacheHits;
+    private long transactionCacheMisses;
+    private long transactionCacheEvictions;
+
 	public static AbstractResponse create(String appName, String appVersion, int jreAvailableProcessors, long jreFreeMemory,
 	        String jreVersion, long maxMemory, long totalMemory, Hash latestMilestone, int latestMilestoneIndex,
 	        Hash latestSolidSubtangleMilestone, int latestSolidSubtangleMilestoneIndex,
 	        int neighbors, int packetsQueueSize,
-	        long currentTimeMillis, int tips, int numberOfTransactionsToRequest) {
+	        long currentTimeMillis, int tips, int numberOfTransactionsToRequest,
+	        long transactionCacheHits, long transactionCacheMisses, long transactionCacheEvictions) {
 		final GetNodeInfoResponse res = new GetNodeInfoResponse();
 		res.appName = appName;
 		res.appVersion = appVersion;
@@ -49,6 +54,10 @@ public class GetNodeInfoResponse extends AbstractResponse {
 		res.time = currentTimeMillis;
 		res.tips = tips;
 		res.transactionsToRequest = numberOfTransactionsToRequest;
+
+		res.transactionCacheHits = transactionCacheHits;
+		res.transactionCacheMisses = transactionCacheMisses;
+		res.transactionCacheEvictions = transactionCacheEvictions;
 		return res;
 	}
 
@@ -116,4 +125,16 @@ public class GetNodeInfoResponse extends AbstractResponse {
 		return transactionsToRequest;
 	}
 
+	public long getTransactionCacheHits() {
+		return transactionCacheHits;
+	}
+
+	public long getTransactionCacheMisses() {
+		return transactionCacheMisses;
+	}
+
+	public long getTransactionCacheEvictions() {
+		return transactionCacheEvictions;
+	}
+
 }
@@ -0,0 +1,450 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact in-memory adjacency index of the recent subtangle.
+ *
+ * Every known transaction is mapped to an int node id. Trunk and branch edges, approver lists, the snapshot index
+ * and the solid flag are kept in primitive arrays indexed by that id, so graph walks can follow edges without
+ * loading transactions or approvee sets from the persistence providers.
+ *
+ * A node referenced only as a trunk or branch is kept as a placeholder until its own transaction is added. The
+ * approvers of a node are only reported once the node has been added together with the approvers already stored
+ * for it; from then on new approvers are appended as their transactions are added. Callers fall back to the
+ * {@link Tangle} whenever a query returns {@code null} or {@link #UNKNOWN}.
+ *
+ * Node ids are looked up in an open addressing table of primitive ids, probed linearly, so no boxed id is allocated
+ * per node. When the number of nodes exceeds the capacity, the oldest confirmed nodes are dropped first, then the
+ * nodes added longest ago.
+ */
+public class DAGIndex {
+    private static final Logger log = LoggerFactory.getLogger(DAGIndex.class);
+
+    public static final int UNKNOWN = -1;
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int EMPTY_SLOT = -1;
+    private static final int REMOVED_SLOT = -2;
+    // the table of ids grows once more than 3/4 of its slots are used or removed
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    private static final byte FILLED = 1;
+    private static final byte COMPLETE = 2;
+    private static final byte SOLID = 4;
+
+    private final int maxSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] table = emptyTable(INITIAL_CAPACITY * 2);
+    private int size = 0;
+    private int removedSlots = 0;
+
+    private Hash[] hashes = new Hash[INITIAL_CAPACITY];
+    private int[] trunks = new int[INITIAL_CAPACITY];
+    private int[] branches = new int[INITIAL_CAPACITY];
+    private int[][] approvers = new int[INITIAL_CAPACITY][];
+    private int[] approverCounts = new int[INITIAL_CAPACITY];
+    private int[] snapshots = new int[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    // the order in which nodes were added, compared by their distance to nextSequence
+    private int[] sequences = new int[INITIAL_CAPACITY];
+    private int nextSequence = 0;
+
+    private int[] freeIds = new int[16];
+    private int freeCount = 0;
+    private int nextId = 0;
+
+    public DAGIndex(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Adds a transaction. Its approvers are reported by {@link #getApprovers} only once it has been added with
+     * {@code storedApprovers} holding every approver currently stored for it; pass {@code null} if they are unknown.
+     */
+    public void add(Hash hash, Hash trunk, Hash branch, int snapshot, boolean solid, Collection<Hash> storedApprovers) {
+        if (!isEnabled() || hash == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int id = nodeId(hash);
+            // nodeId may grow the arrays, so its result is not assigned to them directly
+            if (trunks[id] == NONE) {
+                int trunkId = nodeId(trunk);
+                trunks[id] = trunkId;
+                addApprover(trunkId, id);
+            }
+            if (branches[id] == NONE) {
+                int branchId = nodeId(branch);
+                branches[id] = branchId;
+                addApprover(branchId, id);
+            }
+            byte complete = (byte) (flags[id] & COMPLETE);
+            if (storedApprovers != null) {
+                for (Hash approver : storedApprovers) {
+                    addApprover(id, nodeId(approver));
+                }
+                complete = COMPLETE;
+            }
+            snapshots[id] = snapshot;
+            flags[id] = (byte) (FILLED | complete | (solid ? SOLID : 0));
+            if (size > maxSize) {
+                prune();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(Hash hash, int snapshot, boolean solid) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int id = idOf(hash);
+            if (id != NONE && (flags[id] & FILLED) != 0) {
+                snapshots[id] = snapshot;
+                flags[id] = (byte) (solid ? flags[id] | SOLID : flags[id] & ~SOLID);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Hash hash) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int id = idOf(hash);
+            if (id != NONE) {
+                removeNode(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            table = emptyTable(INITIAL_CAPACITY * 2);
+            size = 0;
+            removedSlots = 0;
+            Arrays.fill(hashes, null);
+            Arrays.fill(approvers, null);
+            nextId = 0;
+            freeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return {trunk, branch} of the transaction, or {@code null} if it has not been added
+     */
+    public Hash[] getParents(Hash hash) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(hash);
+            if (id == NONE || (flags[id] & FILLED) == 0 || trunks[id] == NONE || branches[id] == NONE) {
+                return null;
+            }
+            return new Hash[]{hashes[trunks[id]], hashes[branches[id]]};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the approvers of the transaction, or {@code null} if they are not completely known
+     */
+    public Set<Hash> getApprovers(Hash hash) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(hash);
+            if (id == NONE || (flags[id] & COMPLETE) == 0) {
+                return null;
+            }
+            Set<Hash> set = new HashSet<>(approverCounts[id] * 2);
+            for (int i = 0; i < approverCounts[id]; i++) {
+                set.add(hashes[approvers[id][i]]);
+            }
+            return set;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the snapshot index of the transaction, or {@link #UNKNOWN} if it has not been added
+     */
+    public int getSnapshotIndex(Hash hash) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(hash);
+            return id == NONE || (flags[id] & FILLED) == 0 ? UNKNOWN : snapshots[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the transaction has been added and is known to be solid
+     */
+    public boolean isSolid(Hash hash) {
+        lock.readLock().lock();
+        try {
+            int id = idOf(hash);
+            return id != NONE && (flags[id] & SOLID) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY_SLOT);
+        return table;
+    }
+
+    private int slotOf(Hash hash) {
+        return (int) ((hash.hashCode() * 0x9E3779B97F4A7C15L) >>> 32) & (table.length - 1);
+    }
+
+    /**
+     * @return the id of {@code hash}, or {@link #NONE} if it has no node
+     */
+    private int idOf(Hash hash) {
+        if (hash == null) {
+            return NONE;
+        }
+        for (int slot = slotOf(hash); ; slot = (slot + 1) & (table.length - 1)) {
+            int id = table[slot];
+            if (id == EMPTY_SLOT) {
+                return NONE;
+            }
+            if (id >= 0 && hashes[id].equals(hash)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Adds {@code id} to the table under {@code hash}, which must not have a node yet.
+     */
+    private void insertId(Hash hash, int id) {
+        int slot = slotOf(hash);
+        while (table[slot] >= 0) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        if (table[slot] == REMOVED_SLOT) {
+            removedSlots--;
+        }
+        table[slot] = id;
+        size++;
+    }
+
+    private void removeId(Hash hash) {
+        for (int slot = slotOf(hash); table[slot] != EMPTY_SLOT; slot = (slot + 1) & (table.length - 1)) {
+            int id = table[slot];
+            if (id >= 0 && hashes[id].equals(hash)) {
+                table[slot] = REMOVED_SLOT;
+                removedSlots++;
+                size--;
+                return;
+            }
+        }
+    }
+
+    private void rehash(int expectedSize) {
+        int capacity = INITIAL_CAPACITY * 2;
+        while ((long) capacity * MAX_LOAD_PERCENT / 100 <= expectedSize) {
+            capacity <<= 1;
+        }
+        table = emptyTable(capacity);
+        size = 0;
+        removedSlots = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (hashes[id] != null) {
+                insertId(hashes[id], id);
+            }
+        }
+    }
+
+    private int nodeId(Hash hash) {
+        int id = idOf(hash);
+        if (id != NONE) {
+            return id;
+        }
+        if ((long) (size + removedSlots + 1) * 100 > (long) table.length * MAX_LOAD_PERCENT) {
+            rehash(size + 1);
+        }
+        int newId = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        if (newId == hashes.length) {
+            grow();
+        }
+        insertId(hash, newId);
+        hashes[newId] = hash;
+        sequences[newId] = nextSequence++;
+        trunks[newId] = NONE;
+        branches[newId] = NONE;
+        approvers[newId] = null;
+        approverCounts[newId] = 0;
+        snapshots[newId] = 0;
+        flags[newId] = 0;
+        return newId;
+    }
+
+    private void addApprover(int id, int approverId) {
+        int[] list = approvers[id];
+        int count = approverCounts[id];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == approverId) {
+                return;
+            }
+        }
+        if (list == null) {
+            list = approvers[id] = new int[2];
+        } else if (count == list.length) {
+            list = approvers[id] = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = approverId;
+        approverCounts[id] = count + 1;
+    }
+
+    private void removeApprover(int id, int approverId) {
+        int[] list = approvers[id];
+        int count = approverCounts[id];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == approverId) {
+                list[i] = list[--count];
+                approverCounts[id] = count;
+                return;
+            }
+        }
+    }
+
+    private void removeNode(int id) {
+        // the removed node still approves its parents in the database
+        for (int parent : new int[]{trunks[id], branches[id]}) {
+            if (parent != NONE && hashes[parent] != null) {
+                removeApprover(parent, id);
+                flags[parent] &= ~COMPLETE;
+            }
+        }
+        for (int i = 0; i < approverCounts[id]; i++) {
+            int approver = approvers[id][i];
+            if (trunks[approver] == id) {
+                trunks[approver] = NONE;
+            }
+            if (branches[approver] == id) {
+                branches[approver] = NONE;
+            }
+        }
+        int[] orphans = approvers[id];
+        int orphanCount = approverCounts[id];
+        removeId(hashes[id]);
+        hashes[id] = null;
+        approvers[id] = null;
+        approverCounts[id] = 0;
+        flags[id] = 0;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        // placeholders only exist for the sake of the nodes they are connected to
+        for (int parent : new int[]{trunks[id], branches[id]}) {
+            if (parent != NONE && isOrphanedPlaceholder(parent)) {
+                removeNode(parent);
+            }
+        }
+        for (int i = 0; i < orphanCount; i++) {
+            if (isOrphanedPlaceholder(orphans[i])) {
+                removeNode(orphans[i]);
+            }
+        }
+    }
+
+    private boolean isOrphanedPlaceholder(int id) {
+        return hashes[id] != null && (flags[id] & FILLED) == 0 && approverCounts[id] == 0 && trunks[id] == NONE;
+    }
+
+    /**
+     * Drops the confirmed nodes with the lowest snapshot index until a tenth of the capacity is free, and the nodes
+     * added longest ago if there are too few confirmed ones.
+     */
+    private void prune() {
+        int target = maxSize - maxSize / 10;
+        // the order of a node is packed above its id, so the ids can be sorted as primitives
+        long[] confirmed = new long[size];
+        long[] added = new long[size];
+        int confirmedCount = 0;
+        int addedCount = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (hashes[id] == null) {
+                continue;
+            }
+            if ((flags[id] & FILLED) != 0 && snapshots[id] != 0) {
+                confirmed[confirmedCount++] = (long) snapshots[id] << 32 | id;
+            } else {
+                added[addedCount++] = (long) (Integer.MAX_VALUE - (nextSequence - sequences[id])) << 32 | id;
+            }
+        }
+        Arrays.sort(confirmed, 0, confirmedCount);
+        for (int i = 0; i < confirmedCount && size > target; i++) {
+            removeIfPresent((int) confirmed[i]);
+        }
+        if (size > target) {
+            log.debug("Too few confirmed transactions to prune, dropping the oldest of {} unconfirmed ones.", addedCount);
+            Arrays.sort(added, 0, addedCount);
+            for (int i = 0; i < addedCount && size > target; i++) {
+                removeIfPresent((int) added[i]);
+            }
+        }
+    }
+
+    private void removeIfPresent(int id) {
+        // placeholders are dropped along with the last node connected to them
+        if (hashes[id] != null) {
+            removeNode(id);
+        }
+    }
+
+    private void grow() {
+        int capacity = hashes.length * 2;
+        hashes = Arrays.copyOf(hashes, capacity);
+        trunks = Arrays.copyOf(trunks, capacity);
+        branches = Arrays.copyOf(branches, capacity);
+        approvers = Arrays.copyOf(approvers, capacity);
+        approverCounts = Arrays.copyOf(approverCounts, capacity);
+        snapshots = Arrays.copyOf(snapshots, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+    }
+}
@@ -0,0 +1,53 @@
+package com.iota.iri.storage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A sample of the internal counters of a persistence provider.
+ *
+ * Tickers are counted since the provider was started, histograms hold the percentiles of the recorded operation
+ * times in microseconds, and the database and column family properties are the current values at sampling time.
+ */
+public class DatabaseStatistics {
+
+    private final Map<String, Long> tickers = new LinkedHashMap<>();
+    private final Map<String, Map<String, Double>> histograms = new LinkedHashMap<>();
+    private final Map<String, Long> database = new LinkedHashMap<>();
+    private final Map<String, Map<String, Long>> columnFamilies = new LinkedHashMap<>();
+
+    public Map<String, Long> getTickers() {
+        return tickers;
+    }
+
+    public Map<String, Map<String, Double>> getHistograms() {
+        return histograms;
+    }
+
+    public Map<String, Long> getDatabase() {
+        return database;
+    }
+
+    public Map<String, Map<String, Long>> getColumnFamilies() {
+        return columnFamilies;
+    }
+
+    public long getTicker(String name) {
+        return tickers.getOrDefault(name, 0L);
+    }
+
+    public long getDatabaseProperty(String name) {
+        return database.getOrDefault(name, 0L);
+    }
+
+    /**
+     * @return the sum of a property over all column families
+     */
+    public long getColumnFamilyTotal(String name) {
+        long total = 0;
+        for (Map<String, Long> properties : columnFamilies.values()) {
+            total += properties.getOrDefault(name, 0L);
+        }
+        return total;
+    }
+}
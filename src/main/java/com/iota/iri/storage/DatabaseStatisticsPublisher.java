@@ -0,0 +1,87 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.zmq.MessageQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Periodically samples the {@link DatabaseStatistics} of the {@link Tangle} and publishes them on the
+ * {@code dbs} and {@code dbcf} topics.
+ */
+public class DatabaseStatisticsPublisher {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseStatisticsPublisher.class);
+
+    private final Tangle tangle;
+    private final MessageQ messageQ;
+    private final long interval;
+
+    private volatile boolean shuttingDown;
+    private Thread thread;
+
+    /**
+     * @param interval seconds between samples, 0 or less publishes nothing
+     */
+    public DatabaseStatisticsPublisher(Tangle tangle, MessageQ messageQ, long interval) {
+        this.tangle = tangle;
+        this.messageQ = messageQ;
+        this.interval = interval;
+    }
+
+    public void init() {
+        if (interval <= 0) {
+            return;
+        }
+        thread = new Thread(() -> {
+            while (!shuttingDown) {
+                try {
+                    Thread.sleep(interval * 1000);
+                    DatabaseStatistics statistics = tangle.getStatistics();
+                    if (statistics != null) {
+                        publish(statistics);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    log.error("Error sampling database statistics.", e);
+                }
+            }
+        }, "Database Statistics Publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void publish(DatabaseStatistics statistics) {
+        long memtableBytes = statistics.getColumnFamilyTotal("rocksdb.cur-size-all-mem-tables");
+        long pendingCompactionBytes = statistics.getColumnFamilyTotal("rocksdb.estimate-pending-compaction-bytes");
+        messageQ.publish("dbs %d %d %d %d %d %d %d",
+            statistics.getTicker("BLOCK_CACHE_HIT"),
+            statistics.getTicker("BLOCK_CACHE_MISS"),
+            statistics.getTicker("BYTES_READ"),
+            statistics.getTicker("BYTES_WRITTEN"),
+            statistics.getTicker("STALL_MICROS"),
+            pendingCompactionBytes,
+            memtableBytes);
+        for (Map.Entry<String, Map<String, Long>> columnFamily : statistics.getColumnFamilies().entrySet()) {
+            Map<String, Long> properties = columnFamily.getValue();
+            messageQ.publish("dbcf %s %d %d %d %d",
+                columnFamily.getKey(),
+                properties.getOrDefault("rocksdb.cur-size-all-mem-tables", 0L),
+                properties.getOrDefault("rocksdb.total-sst-files-size", 0L),
+                properties.getOrDefault("rocksdb.estimate-pending-compaction-bytes", 0L),
+                properties.getOrDefault("rocksdb.estimate-num-keys", 0L));
+        }
+        log.debug("Database block cache hits/misses: {}/{}, pending compaction: {} bytes, memtables: {} bytes",
+            statistics.getTicker("BLOCK_CACHE_HIT"), statistics.getTicker("BLOCK_CACHE_MISS"),
+            pendingCompactionBytes, memtableBytes);
+    }
+
+    public void shutdown() {
+        shuttingDown = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
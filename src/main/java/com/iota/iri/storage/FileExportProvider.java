@@ -13,6 +13,7 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -100,6 +101,16 @@ public class FileExportProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public Map<Indexable, Persistable> getBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Map<Indexable, Persistable> getMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return null;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) throws Exception {
         return false;
@@ -120,6 +131,11 @@ public class FileExportProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception {
+        return null;
+    }
+
     @Override
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
         return null;
@@ -174,4 +190,24 @@ public class FileExportProvider implements PersistenceProvider {
         }
         return trits;
     }
+
+    @Override
+    public boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, ChunkConsumer consumer) throws Exception {
+        return false;
+    }
+
+    @Override
+    public long archive(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return 0;
+    }
+
+    @Override
+    public boolean isArchived(Class<?> model, Indexable index) throws Exception {
+        return false;
+    }
+
+    @Override
+    public DatabaseStatistics getStatistics() throws Exception {
+        return null;
+    }
 }
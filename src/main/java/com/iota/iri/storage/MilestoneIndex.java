@@ -0,0 +1,202 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.IntegerIndex;
+import com.iota.iri.model.Milestone;
+import com.iota.iri.utils.Pair;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact in-memory index of the stored milestones.
+ *
+ * Milestone indexes are kept in a sorted int array and their hashes packed back to back in a byte array, so a lookup
+ * by index, or of the closest milestone before or after an index, is a binary search instead of a walk through the
+ * persistence providers. The index is read from the {@link Tangle} on first use and kept up to date as milestones are
+ * saved and deleted. Since milestones mostly arrive in order, new ones are appended.
+ */
+public class MilestoneIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] indexes = new int[INITIAL_CAPACITY];
+    private byte[] hashes = new byte[INITIAL_CAPACITY * Hash.SIZE_IN_BYTES];
+    private int size = 0;
+    private volatile boolean loaded = false;
+
+    /**
+     * Reads every stored milestone, unless the index has been loaded since it was last cleared. Milestones saved or
+     * deleted meanwhile wait for the load to finish.
+     */
+    public void load(Tangle tangle) throws Exception {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            Pair<Indexable, Persistable> milestonePair = tangle.getFirst(Milestone.class, IntegerIndex.class);
+            while (milestonePair != null && milestonePair.hi != null) {
+                Milestone milestone = (Milestone) milestonePair.hi;
+                if (milestone.hash != null) {
+                    insert(milestone.index.getValue(), milestone.hash);
+                }
+                milestonePair = tangle.next(Milestone.class, milestone.index);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void put(int index, Hash hash) {
+        lock.writeLock().lock();
+        try {
+            insert(index, hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int index) {
+        lock.writeLock().lock();
+        try {
+            int position = search(index);
+            if (position >= 0) {
+                System.arraycopy(indexes, position + 1, indexes, position, size - position - 1);
+                System.arraycopy(hashes, (position + 1) * Hash.SIZE_IN_BYTES, hashes, position * Hash.SIZE_IN_BYTES,
+                        (size - position - 1) * Hash.SIZE_IN_BYTES);
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every milestone; the next {@link #load} reads them from the {@link Tangle} again.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the hash of the milestone, or {@code null} if there is none with this index
+     */
+    public Hash get(int index) {
+        lock.readLock().lock();
+        try {
+            int position = search(index);
+            return position < 0 ? null : hash(position);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the milestone with the lowest index, or {@code null} if there is none
+     */
+    public Pair<Integer, Hash> first() {
+        lock.readLock().lock();
+        try {
+            return entry(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the milestone with the highest index, or {@code null} if there is none
+     */
+    public Pair<Integer, Hash> latest() {
+        lock.readLock().lock();
+        try {
+            return entry(size - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the milestone with the lowest index above {@code index}, or {@code null} if there is none
+     */
+    public Pair<Integer, Hash> higher(int index) {
+        lock.readLock().lock();
+        try {
+            int position = search(index);
+            return entry(position < 0 ? -position - 1 : position + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the milestone with the highest index below {@code index}, or {@code null} if there is none
+     */
+    public Pair<Integer, Hash> lower(int index) {
+        lock.readLock().lock();
+        try {
+            int position = search(index);
+            return entry(position < 0 ? -position - 2 : position - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int search(int index) {
+        // milestones are mostly looked up near the latest one
+        if (size > 0 && index > indexes[size - 1]) {
+            return -size - 1;
+        }
+        return Arrays.binarySearch(indexes, 0, size, index);
+    }
+
+    private Pair<Integer, Hash> entry(int position) {
+        return position < 0 || position >= size ? null : new Pair<>(indexes[position], hash(position));
+    }
+
+    private Hash hash(int position) {
+        return new Hash(hashes, position * Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES);
+    }
+
+    private void insert(int index, Hash hash) {
+        int position = search(index);
+        if (position < 0) {
+            position = -position - 1;
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2 * Hash.SIZE_IN_BYTES);
+            }
+            System.arraycopy(indexes, position, indexes, position + 1, size - position);
+            System.arraycopy(hashes, position * Hash.SIZE_IN_BYTES, hashes, (position + 1) * Hash.SIZE_IN_BYTES,
+                    (size - position) * Hash.SIZE_IN_BYTES);
+            indexes[position] = index;
+            size++;
+        }
+        System.arraycopy(hash.bytes(), 0, hashes, position * Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES);
+    }
+}
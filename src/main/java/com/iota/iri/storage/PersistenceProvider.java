@@ -3,6 +3,7 @@ package com.iota.iri.storage;
 import com.iota.iri.model.*;
 import com.iota.iri.utils.Pair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +29,9 @@ public interface PersistenceProvider {
 
     Persistable get(Class<?> model, Indexable index) throws Exception;
 
+    Map<Indexable, Persistable> getBatch(Class<?> model, Collection<Indexable> indexes) throws Exception;
+    Map<Indexable, Persistable> getMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception;
+
     boolean mayExist(Class<?> model, Indexable index) throws Exception;
 
     long count(Class<?> model) throws Exception;
@@ -36,6 +40,11 @@ public interface PersistenceProvider {
 
     Persistable seek(Class<?> model, byte[] key) throws Exception;
 
+    /**
+     * @return the smallest key of {@code model} starting with {@code prefix}, or {@code null} if there is none
+     */
+    Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception;
+
     Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception;
     Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception;
 
@@ -45,4 +54,32 @@ public interface PersistenceProvider {
 
     void clear(Class<?> column) throws Exception;
     void clearMetadata(Class<?> column) throws Exception;
+
+    /**
+     * Passes every stored object of {@code model} to {@code consumer} in chunks of up to {@code chunkSize} objects.
+     * The key space is split among {@code threads} workers, so chunks are passed concurrently and in no particular
+     * order. Only the objects themselves are read, not their metadata.
+     *
+     * @return false if the provider cannot scan {@code model}
+     */
+    boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, ChunkConsumer consumer) throws Exception;
+
+    interface ChunkConsumer {
+        void accept(List<Pair<Indexable, Persistable>> chunk) throws Exception;
+    }
+
+    /**
+     * Moves the stored objects of {@code model} at {@code indexes} to colder storage. They remain readable by their
+     * index, but may no longer be found by iterating over the stored keys.
+     *
+     * @return the number of objects moved
+     */
+    long archive(Class<?> model, Collection<Indexable> indexes) throws Exception;
+
+    boolean isArchived(Class<?> model, Indexable index) throws Exception;
+
+    /**
+     * @return a sample of the internal counters, or {@code null} if the provider keeps none
+     */
+    DatabaseStatistics getStatistics() throws Exception;
 }
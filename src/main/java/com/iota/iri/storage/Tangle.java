@@ -2,6 +2,9 @@ package com.iota.iri.storage;
 
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.Hashes;
+import com.iota.iri.model.IntegerIndex;
+import com.iota.iri.model.Milestone;
+import com.iota.iri.model.Transaction;
 import com.iota.iri.utils.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,7 +18,22 @@ import java.util.concurrent.*;
 public class Tangle {
     private static final Logger log = LoggerFactory.getLogger(Tangle.class);
 
+    public static final long DEFAULT_TRANSACTION_CACHE_SIZE = 32 * 1024 * 1024;
+    public static final int DEFAULT_DAG_INDEX_SIZE = 500000;
+
     private final List<PersistenceProvider> persistenceProviders = new ArrayList<>();
+    private final TransactionCache transactionCache;
+    private final DAGIndex dagIndex;
+    private final MilestoneIndex milestoneIndex = new MilestoneIndex();
+
+    public Tangle() {
+        this(DEFAULT_TRANSACTION_CACHE_SIZE, DEFAULT_DAG_INDEX_SIZE);
+    }
+
+    public Tangle(long transactionCacheSize, int dagIndexSize) {
+        this.transactionCache = new TransactionCache(transactionCacheSize);
+        this.dagIndex = new DAGIndex(dagIndexSize);
+    }
 
     public void addPersistenceProvider(PersistenceProvider provider) {
         this.persistenceProviders.add(provider);
@@ -32,16 +50,87 @@ public class Tangle {
         log.info("Shutting down Tangle Persistence Providers... ");
         this.persistenceProviders.forEach(PersistenceProvider::shutdown);
         this.persistenceProviders.clear();
+        transactionCache.clear();
+        dagIndex.clear();
+        milestoneIndex.clear();
+    }
+
+    public TransactionCache getTransactionCache() {
+        return transactionCache;
+    }
+
+    public DAGIndex getDAGIndex() {
+        return dagIndex;
+    }
+
+    public MilestoneIndex getMilestoneIndex() {
+        return milestoneIndex;
     }
 
     public Persistable load(Class<?> model, Indexable index) throws Exception {
             Persistable out = null;
+            if(model == Transaction.class && (out = transactionCache.get((Hash) index)) != null) {
+                return out;
+            }
+            long stamp = model == Transaction.class ? transactionCache.stamp((Hash) index) : 0;
             for(PersistenceProvider provider: this.persistenceProviders) {
                 if((out = provider.get(model, index)) != null) {
                     break;
                 }
             }
+            if(model == Transaction.class && out != null) {
+                transactionCache.put((Hash) index, (Transaction) out, stamp);
+            }
+            return out;
+    }
+
+    /**
+     * Loads several objects of the same model at once. Every requested index is present in the result.
+     */
+    public Map<Indexable, Persistable> loadBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        Map<Indexable, Persistable> out = new HashMap<>(indexes.size() * 2);
+        List<Indexable> missing = new ArrayList<>(indexes.size());
+        long[] stamps = new long[indexes.size()];
+        for(Indexable index: indexes) {
+            Persistable cached = model == Transaction.class ? transactionCache.get((Hash) index) : null;
+            if(cached != null) {
+                out.put(index, cached);
+            } else {
+                if(model == Transaction.class) {
+                    stamps[missing.size()] = transactionCache.stamp((Hash) index);
+                }
+                missing.add(index);
+            }
+        }
+        if(missing.isEmpty()) {
             return out;
+        }
+        for(PersistenceProvider provider: this.persistenceProviders) {
+            Map<Indexable, Persistable> loaded = provider.getBatch(model, missing);
+            if(loaded != null) {
+                out.putAll(loaded);
+                break;
+            }
+        }
+        if(model == Transaction.class) {
+            for(int i = 0; i < missing.size(); i++) {
+                transactionCache.put((Hash) missing.get(i), (Transaction) out.get(missing.get(i)), stamps[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Loads only the metadata of several objects of the same model at once.
+     */
+    public Map<Indexable, Persistable> loadMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        Map<Indexable, Persistable> out = null;
+        for(PersistenceProvider provider: this.persistenceProviders) {
+            if((out = provider.getMetadataBatch(model, indexes)) != null) {
+                break;
+            }
+        }
+        return out == null ? Collections.emptyMap() : out;
     }
 
     public Boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
@@ -53,6 +142,11 @@ public class Tangle {
                 exists = provider.saveBatch(models);
             }
         }
+        for(Pair<Indexable, Persistable> entry: models) {
+            if(entry.hi instanceof Transaction) {
+                transactionCache.write((Hash) entry.low, (Transaction) entry.hi);
+            }
+        }
         return exists;
     }
     public Boolean save(Persistable model, Indexable index) throws Exception {
@@ -64,6 +158,12 @@ public class Tangle {
                    exists = provider.save(model, index);
                 }
             }
+            if(model instanceof Transaction) {
+                transactionCache.write((Hash) index, (Transaction) model);
+            }
+            if(model instanceof Milestone) {
+                milestoneIndex.put(((IntegerIndex) index).getValue(), ((Milestone) model).hash);
+            }
             return exists;
     }
 
@@ -71,6 +171,13 @@ public class Tangle {
             for(PersistenceProvider provider: persistenceProviders) {
                 provider.delete(model, index);
             }
+            if(model == Transaction.class) {
+                transactionCache.invalidate((Hash) index);
+                dagIndex.remove((Hash) index);
+            }
+            if(model == Milestone.class) {
+                milestoneIndex.remove(((IntegerIndex) index).getValue());
+            }
     }
 
     public Pair<Indexable, Persistable> getLatest(Class<?> model, Class<?> index) throws Exception {
@@ -85,12 +192,23 @@ public class Tangle {
 
     public Boolean update(Persistable model, Indexable index, String item) throws Exception {
             boolean success = false;
-            for(PersistenceProvider provider: this.persistenceProviders) {
-                if(success) {
-                    provider.update(model, index, item);
-                } else {
-                    success = provider.update(model, index, item);
+            try {
+                for(PersistenceProvider provider: this.persistenceProviders) {
+                    if(success) {
+                        provider.update(model, index, item);
+                    } else {
+                        success = provider.update(model, index, item);
+                    }
+                }
+            } catch (Exception e) {
+                // the providers may disagree now, the next load reads the stored state again
+                if(model instanceof Transaction) {
+                    transactionCache.invalidate((Hash) index);
                 }
+                throw e;
+            }
+            if(model instanceof Transaction) {
+                transactionCache.write((Hash) index, (Transaction) model);
             }
             return success;
     }
@@ -155,6 +273,55 @@ public class Tangle {
             return out;
     }
 
+    public Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception {
+            Indexable out = null;
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if ((out = provider.firstKeyStartingWith(model, prefix)) != null) {
+                    break;
+                }
+            }
+            return out;
+    }
+
+    /**
+     * @see PersistenceProvider#scan
+     */
+    public boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, PersistenceProvider.ChunkConsumer consumer) throws Exception {
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if (provider.scan(model, index, threads, chunkSize, consumer)) {
+                    return true;
+                }
+            }
+            return false;
+    }
+
+    public long archive(Class<?> model, Collection<Indexable> indexes) throws Exception {
+            long archived = 0;
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                archived = Math.max(archived, provider.archive(model, indexes));
+            }
+            return archived;
+    }
+
+    public boolean isArchived(Class<?> model, Indexable index) throws Exception {
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if (provider.isArchived(model, index)) {
+                    return true;
+                }
+            }
+            return false;
+    }
+
+    public DatabaseStatistics getStatistics() throws Exception {
+            DatabaseStatistics out = null;
+            for (PersistenceProvider provider : this.persistenceProviders) {
+                if ((out = provider.getStatistics()) != null) {
+                    break;
+                }
+            }
+            return out;
+    }
+
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
             Pair<Indexable, Persistable> latest = null;
             for(PersistenceProvider provider: persistenceProviders) {
@@ -189,12 +356,23 @@ public class Tangle {
         for(PersistenceProvider provider: persistenceProviders) {
             provider.clear(column);
         }
+        if(column == Transaction.class) {
+            transactionCache.clear();
+            dagIndex.clear();
+        }
+        if(column == Milestone.class) {
+            milestoneIndex.clear();
+        }
     }
 
     public void clearMetadata(Class<?> column) throws Exception {
         for(PersistenceProvider provider: persistenceProviders) {
             provider.clearMetadata(column);
         }
+        if(column == Transaction.class) {
+            transactionCache.clear();
+            dagIndex.clear();
+        }
     }
 
     /*
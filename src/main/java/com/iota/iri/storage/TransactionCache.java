@@ -0,0 +1,229 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.Transaction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of decoded {@link Transaction}s (body and metadata) shared by all readers of a {@link Tangle}.
+ *
+ * The cache is split into independently locked segments, each evicting in least recently used order once its share
+ * of the byte budget is exhausted. Entries are never handed out directly: readers always receive a copy, so changes
+ * made to a loaded transaction only become visible to others once they are written back through the {@link Tangle}.
+ *
+ * A transaction read from the persistence providers is only cached if nothing was written to or invalidated in its
+ * segment since the read began, so a slow read can never replace a newer transaction written through meanwhile.
+ */
+public class TransactionCache {
+
+    private static final int SEGMENTS = 16;
+    // approximate heap footprint of a decoded transaction besides its raw bytes (hashes, fields, map entry)
+    private static final int ENTRY_OVERHEAD = 1200;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final boolean enabled;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TransactionCache(long maxSizeInBytes) {
+        this.enabled = maxSizeInBytes > 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxSizeInBytes / SEGMENTS);
+        }
+    }
+
+    public Transaction get(Hash hash) {
+        if (!enabled || hash == null) {
+            return null;
+        }
+        Transaction transaction = segmentFor(hash).get(hash);
+        if (transaction == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(transaction);
+    }
+
+    /**
+     * @return the stamp to pass to {@link #put} for a transaction about to be read from the persistence providers
+     */
+    public long stamp(Hash hash) {
+        return enabled && hash != null ? segmentFor(hash).generation() : 0;
+    }
+
+    /**
+     * Caches a transaction exactly as it was read from the persistence providers, unless it is cached already or its
+     * segment was written to since {@code stamp} was taken.
+     */
+    public void put(Hash hash, Transaction transaction, long stamp) {
+        if (!enabled || hash == null || transaction == null || transaction.bytes == null) {
+            return;
+        }
+        Transaction cached = copy(transaction);
+        segmentFor(hash).fill(hash, cached, weigh(cached), stamp);
+    }
+
+    /**
+     * Caches a transaction that was just written through the tangle, which persists its metadata alongside it.
+     */
+    public void write(Hash hash, Transaction transaction) {
+        if (!enabled || hash == null || transaction == null) {
+            return;
+        }
+        if (transaction.bytes == null) {
+            // nothing worth keeping for a slot we only know the hash of
+            invalidate(hash);
+            return;
+        }
+        Transaction cached = copy(transaction);
+        cached.parsed = true;
+        segmentFor(hash).put(hash, cached, weigh(cached));
+    }
+
+    public void invalidate(Hash hash) {
+        if (enabled && hash != null) {
+            segmentFor(hash).remove(hash);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private Segment segmentFor(Hash hash) {
+        int h = hash.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static long weigh(Transaction transaction) {
+        return ENTRY_OVERHEAD + transaction.bytes.length + transaction.sender.length();
+    }
+
+    /**
+     * Copies every field, including the bytes, which callers are free to modify.
+     */
+    static Transaction copy(Transaction source) {
+        Transaction transaction = new Transaction();
+        transaction.bytes = source.bytes == null ? null : source.bytes.clone();
+        transaction.address = source.address;
+        transaction.bundle = source.bundle;
+        transaction.trunk = source.trunk;
+        transaction.branch = source.branch;
+        transaction.obsoleteTag = source.obsoleteTag;
+        transaction.value = source.value;
+        transaction.currentIndex = source.currentIndex;
+        transaction.lastIndex = source.lastIndex;
+        transaction.timestamp = source.timestamp;
+        transaction.tag = source.tag;
+        transaction.attachmentTimestamp = source.attachmentTimestamp;
+        transaction.attachmentTimestampLowerBound = source.attachmentTimestampLowerBound;
+        transaction.attachmentTimestampUpperBound = source.attachmentTimestampUpperBound;
+        transaction.validity = source.validity;
+        transaction.type = source.type;
+        transaction.arrivalTime = source.arrivalTime;
+        transaction.parsed = source.parsed;
+        transaction.solid = source.solid;
+        transaction.height = source.height;
+        transaction.sender = source.sender;
+        transaction.snapshot = source.snapshot;
+        return transaction;
+    }
+
+    private class Segment {
+        private final long capacity;
+        private final LinkedHashMap<Hash, Transaction> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight = 0;
+        // incremented whenever an entry is written, invalidated or cleared
+        private long generation = 0;
+
+        private Segment(long capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized Transaction get(Hash hash) {
+            return map.get(hash);
+        }
+
+        private synchronized long generation() {
+            return generation;
+        }
+
+        private synchronized void fill(Hash hash, Transaction transaction, long entryWeight, long stamp) {
+            if (generation == stamp && !map.containsKey(hash)) {
+                insert(hash, transaction, entryWeight);
+            }
+        }
+
+        private synchronized void put(Hash hash, Transaction transaction, long entryWeight) {
+            generation++;
+            insert(hash, transaction, entryWeight);
+        }
+
+        private void insert(Hash hash, Transaction transaction, long entryWeight) {
+            if (entryWeight > capacity) {
+                remove(hash);
+                return;
+            }
+            Transaction previous = map.put(hash, transaction);
+            if (previous != null) {
+                weight -= weigh(previous);
+            }
+            weight += entryWeight;
+            Iterator<Map.Entry<Hash, Transaction>> iterator = map.entrySet().iterator();
+            while (weight > capacity && iterator.hasNext()) {
+                Map.Entry<Hash, Transaction> eldest = iterator.next();
+                weight -= weigh(eldest.getValue());
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        private synchronized void remove(Hash hash) {
+            generation++;
+            Transaction previous = map.remove(hash);
+            if (previous != null) {
+                weight -= weigh(previous);
+            }
+        }
+
+        private synchronized void clear() {
+            generation++;
+            map.clear();
+            weight = 0;
+        }
+
+        private synchronized int size() {
+            return map.size();
+        }
+    }
+}
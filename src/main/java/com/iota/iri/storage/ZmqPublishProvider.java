@@ -1,6 +1,8 @@
 package com.iota.iri.storage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -124,6 +126,16 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public Map<Indexable, Persistable> getBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Map<Indexable, Persistable> getMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return null;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) throws Exception {
         return false;
@@ -144,6 +156,11 @@ public class ZmqPublishProvider implements PersistenceProvider {
         return null;
     }
 
+    @Override
+    public Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception {
+        return null;
+    }
+
     @Override
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
         return null;
@@ -174,4 +191,23 @@ public class ZmqPublishProvider implements PersistenceProvider {
 
     }
 
-}
\ No newline at end of file
+    @Override
+    public boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, ChunkConsumer consumer) throws Exception {
+        return false;
+    }
+
+    @Override
+    public long archive(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return 0;
+    }
+
+    @Override
+    public boolean isArchived(Class<?> model, Indexable index) throws Exception {
+        return false;
+    }
+
+    @Override
+    public DatabaseStatistics getStatistics() throws Exception {
+        return null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.rocksdb.CompressionType;
+import org.rocksdb.util.SizeUnit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tuning of a single column family.
+ *
+ * A profile is written as comma separated {@code key=value} pairs, e.g. {@code write_buffer_size=8192,compression=none}.
+ * Keys that are left out keep the default of the family they are applied to. Sizes are given in KB and the block
+ * cache share is the percentage of the database cache reserved for the family.
+ */
+public class ColumnFamilyProfile {
+
+    public static final String WRITE_BUFFER_SIZE = "write_buffer_size";
+    public static final String MAX_WRITE_BUFFER_NUMBER = "max_write_buffer_number";
+    public static final String COMPRESSION = "compression";
+    public static final String BLOOM_BITS = "bloom_bits";
+    public static final String PREFIX_LENGTH = "prefix_length";
+    public static final String BLOCK_SIZE = "block_size";
+    public static final String PIN_L0 = "pin_l0";
+    public static final String BLOCK_CACHE_SHARE = "block_cache_share";
+
+    private static final String HASHES_DEFAULTS =
+        "write_buffer_size=4096,max_write_buffer_number=3,compression=snappy,bloom_bits=10,prefix_length=49,block_size=4,pin_l0=true";
+
+    // transactions and their metadata are written once, their flags are small and rewritten on every solidification
+    // and confirmation, and the Hashes families are appended to for every new transaction and read by prefix
+    // transactions use the prefix length of mainnet transaction requests, archived transactions are rarely read and
+    // trade read speed for size
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+    static {
+        DEFAULTS.put("default",
+            "write_buffer_size=1024,max_write_buffer_number=2,compression=none,bloom_bits=0,prefix_length=0,block_size=4,pin_l0=false,block_cache_share=1");
+        DEFAULTS.put("transaction",
+            "write_buffer_size=8192,max_write_buffer_number=3,compression=snappy,bloom_bits=10,prefix_length=46,block_size=16,pin_l0=true,block_cache_share=34");
+        DEFAULTS.put("transaction-archive",
+            "write_buffer_size=2048,max_write_buffer_number=2,compression=zlib,bloom_bits=10,prefix_length=0,block_size=64,pin_l0=false,block_cache_share=1");
+        DEFAULTS.put("transaction-metadata",
+            "write_buffer_size=4096,max_write_buffer_number=2,compression=snappy,bloom_bits=10,prefix_length=0,block_size=4,pin_l0=true,block_cache_share=20");
+        DEFAULTS.put("transaction-flags",
+            "write_buffer_size=16384,max_write_buffer_number=4,compression=none,bloom_bits=10,prefix_length=0,block_size=4,pin_l0=true,block_cache_share=10");
+        DEFAULTS.put("milestone",
+            "write_buffer_size=1024,max_write_buffer_number=2,compression=snappy,bloom_bits=10,prefix_length=0,block_size=4,pin_l0=false,block_cache_share=2");
+        DEFAULTS.put("stateDiff",
+            "write_buffer_size=2048,max_write_buffer_number=2,compression=snappy,bloom_bits=10,prefix_length=0,block_size=16,pin_l0=false,block_cache_share=2");
+        DEFAULTS.put("address", HASHES_DEFAULTS + ",block_cache_share=10");
+        DEFAULTS.put("approvee", HASHES_DEFAULTS + ",block_cache_share=12");
+        DEFAULTS.put("bundle", HASHES_DEFAULTS + ",block_cache_share=5");
+        DEFAULTS.put("tag", HASHES_DEFAULTS + ",block_cache_share=3");
+    }
+
+    private final String name;
+    private long writeBufferSize;
+    private int maxWriteBufferNumber;
+    private CompressionType compression;
+    private int bloomBits;
+    private int prefixLength;
+    private long blockSize;
+    private boolean pinL0;
+    private int blockCacheShare;
+
+    private ColumnFamilyProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param name      the column family
+     * @param overrides a profile overriding the defaults of the family, may be {@code null} or empty
+     * @throws IllegalArgumentException if the family is unknown or the profile cannot be parsed
+     */
+    public static ColumnFamilyProfile forFamily(String name, String overrides) {
+        String defaults = DEFAULTS.get(name);
+        if (defaults == null) {
+            throw new IllegalArgumentException("No default profile for column family " + name);
+        }
+        ColumnFamilyProfile profile = new ColumnFamilyProfile(name);
+        profile.apply(defaults);
+        if (overrides != null && !overrides.trim().isEmpty()) {
+            profile.apply(overrides);
+        }
+        return profile;
+    }
+
+    private void apply(String profile) {
+        for (String setting : profile.split(",")) {
+            String[] pair = setting.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid setting '" + setting + "' in profile of " + name);
+            }
+            String key = pair[0].trim(), value = pair[1].trim();
+            try {
+                switch (key) {
+                    case WRITE_BUFFER_SIZE:
+                        writeBufferSize = Long.parseLong(value) * SizeUnit.KB;
+                        break;
+                    case MAX_WRITE_BUFFER_NUMBER:
+                        maxWriteBufferNumber = Integer.parseInt(value);
+                        break;
+                    case COMPRESSION:
+                        compression = compressionType(value);
+                        break;
+                    case BLOOM_BITS:
+                        bloomBits = Integer.parseInt(value);
+                        break;
+                    case PREFIX_LENGTH:
+                        prefixLength = Integer.parseInt(value);
+                        break;
+                    case BLOCK_SIZE:
+                        blockSize = Long.parseLong(value) * SizeUnit.KB;
+                        break;
+                    case PIN_L0:
+                        pinL0 = Boolean.parseBoolean(value);
+                        break;
+                    case BLOCK_CACHE_SHARE:
+                        blockCacheShare = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown setting '" + key + "' in profile of " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value '" + value + "' for " + key + " in profile of " + name, e);
+            }
+        }
+    }
+
+    private CompressionType compressionType(String value) {
+        switch (value.toLowerCase()) {
+            case "none":
+                return CompressionType.NO_COMPRESSION;
+            case "snappy":
+                return CompressionType.SNAPPY_COMPRESSION;
+            case "lz4":
+                return CompressionType.LZ4_COMPRESSION;
+            case "zstd":
+                return CompressionType.ZSTD_COMPRESSION;
+            case "zlib":
+                return CompressionType.ZLIB_COMPRESSION;
+            default:
+                throw new IllegalArgumentException("Unknown compression '" + value + "' in profile of " + name);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWriteBufferSize() {
+        return writeBufferSize;
+    }
+
+    public int getMaxWriteBufferNumber() {
+        return maxWriteBufferNumber;
+    }
+
+    public CompressionType getCompression() {
+        return compression;
+    }
+
+    public int getBloomBits() {
+        return bloomBits;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isPinL0() {
+        return pinL0;
+    }
+
+    public int getBlockCacheShare() {
+        return blockCacheShare;
+    }
+}
@@ -0,0 +1,138 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.apache.commons.io.IOUtils;
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the puts of many writes into a single {@link WriteBatch}.
+ *
+ * The batch is written once it holds {@code maxWrites} writes, by the thread completing the last of them, or at the
+ * latest {@code maxDelay} milliseconds later by a background thread. Until then the pending values are served from
+ * memory, so point lookups see them right away, but they are not in the write ahead log either: a crash loses up to
+ * {@code maxDelay} milliseconds of writes.
+ */
+class GroupCommit {
+    private static final Logger log = LoggerFactory.getLogger(GroupCommit.class);
+
+    static final Comparator<byte[]> UNSIGNED_ORDER = (a, b) -> {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int compare = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    };
+
+    private final RocksDB db;
+    private final int maxWrites;
+    private final long maxDelay;
+    private final WriteOptions writeOptions;
+
+    private final Map<ColumnFamilyHandle, TreeMap<byte[], byte[]>> pending = new HashMap<>();
+    private final WriteBatch writeBatch = new WriteBatch();
+    private int writes = 0;
+    private ScheduledExecutorService scheduler;
+
+    GroupCommit(RocksDB db, int maxWrites, long maxDelay, boolean sync) {
+        this.db = db;
+        this.maxWrites = maxWrites;
+        this.maxDelay = maxDelay;
+        this.writeOptions = new WriteOptions().setSync(sync);
+    }
+
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RocksDB Group Commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("Error writing pending batch.", e);
+            }
+        }, maxDelay, maxDelay, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void put(ColumnFamilyHandle handle, byte[] key, byte[] value) {
+        writeBatch.put(handle, key, value);
+        pending.computeIfAbsent(handle, h -> new TreeMap<>(UNSIGNED_ORDER)).put(key, value);
+    }
+
+    /**
+     * Completes a write whose puts have been added. Holding the lock of this object while adding them keeps the write
+     * in a single batch.
+     */
+    synchronized void commit() throws RocksDBException {
+        if (++writes >= maxWrites) {
+            flush();
+        }
+    }
+
+    /**
+     * @return the pending value of the key, or {@code null} if it has no pending put
+     */
+    synchronized byte[] get(ColumnFamilyHandle handle, byte[] key) {
+        TreeMap<byte[], byte[]> values = pending.get(handle);
+        return values == null ? null : values.get(key);
+    }
+
+    /**
+     * @return the pending keys starting with {@code prefix}, in key order
+     */
+    synchronized List<byte[]> keysStartingWith(ColumnFamilyHandle handle, byte[] prefix) {
+        TreeMap<byte[], byte[]> values = pending.get(handle);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        List<byte[]> keys = new ArrayList<>();
+        for (byte[] key : values.tailMap(prefix, true).keySet()) {
+            if (key.length < prefix.length || UNSIGNED_ORDER.compare(Arrays.copyOf(key, prefix.length), prefix) != 0) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Writes the pending batch. If the write fails, the batch is dropped and the error is thrown to the caller only,
+     * so the failed writes are neither retried by every later write nor served from memory as if they were stored.
+     */
+    synchronized void flush() throws RocksDBException {
+        if (writeBatch.count() == 0) {
+            return;
+        }
+        try {
+            db.write(writeOptions, writeBatch);
+        } catch (RocksDBException e) {
+            log.error("Dropping a batch of {} writes that could not be written.", writes);
+            throw e;
+        } finally {
+            writeBatch.clear();
+            pending.clear();
+            writes = 0;
+        }
+    }
+
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            flush();
+        } catch (RocksDBException e) {
+            log.error("Error writing pending batch on shutdown.", e);
+        }
+        IOUtils.closeQuietly(writeBatch::close, writeOptions::close);
+    }
+}
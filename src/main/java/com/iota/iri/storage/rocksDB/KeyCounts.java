@@ -0,0 +1,98 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.rocksdb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact number of keys in a set of column families, maintained as keys are added and removed.
+ *
+ * The counts are stored on shutdown and the stored record is removed again when it is loaded, so a database that
+ * was not shut down cleanly has no record and its counts are rebuilt by scanning the column families.
+ */
+class KeyCounts {
+    private static final Logger log = LoggerFactory.getLogger(KeyCounts.class);
+
+    private static final byte[] KEY_COUNTS_KEY = "key-counts".getBytes();
+
+    private final Map<ColumnFamilyHandle, AtomicLong> counts = new LinkedHashMap<>();
+
+    KeyCounts(List<ColumnFamilyHandle> handles) {
+        for (ColumnFamilyHandle handle : handles) {
+            counts.put(handle, new AtomicLong());
+        }
+    }
+
+    void load(RocksDB db, ColumnFamilyHandle defaultHandle) throws RocksDBException {
+        byte[] stored = db.get(defaultHandle, KEY_COUNTS_KEY);
+        if (stored != null && stored.length == counts.size() * Long.BYTES) {
+            ByteBuffer buffer = ByteBuffer.wrap(stored);
+            for (AtomicLong count : counts.values()) {
+                count.set(buffer.getLong());
+            }
+            db.delete(defaultHandle, KEY_COUNTS_KEY);
+            return;
+        }
+        log.info("Counting stored keys...");
+        try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true).setFillCache(false)) {
+            for (Map.Entry<ColumnFamilyHandle, AtomicLong> entry : counts.entrySet()) {
+                long count = 0;
+                try (RocksIterator iterator = db.newIterator(entry.getKey(), readOptions)) {
+                    for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                        count++;
+                    }
+                }
+                entry.getValue().set(count);
+            }
+        }
+        log.info("Counted stored keys: {}", counts.values());
+    }
+
+    void store(RocksDB db, ColumnFamilyHandle defaultHandle) throws RocksDBException {
+        ByteBuffer buffer = ByteBuffer.allocate(counts.size() * Long.BYTES);
+        for (AtomicLong count : counts.values()) {
+            buffer.putLong(count.get());
+        }
+        db.put(defaultHandle, KEY_COUNTS_KEY, buffer.array());
+    }
+
+    boolean isCounted(ColumnFamilyHandle handle) {
+        return counts.containsKey(handle);
+    }
+
+    void add(ColumnFamilyHandle handle, long delta) {
+        AtomicLong count = counts.get(handle);
+        if (count != null) {
+            count.addAndGet(delta);
+        }
+    }
+
+    void reset(ColumnFamilyHandle handle) {
+        AtomicLong count = counts.get(handle);
+        if (count != null) {
+            count.set(0);
+        }
+    }
+
+    /**
+     * Counts the keys of a recreated column family under its new handle, starting from zero.
+     */
+    void replace(ColumnFamilyHandle handle, ColumnFamilyHandle replacement) {
+        if (!counts.containsKey(handle)) {
+            return;
+        }
+        Map<ColumnFamilyHandle, AtomicLong> previous = new LinkedHashMap<>(counts);
+        counts.clear();
+        previous.forEach((h, count) -> counts.put(h == handle ? replacement : h, h == handle ? new AtomicLong() : count));
+    }
+
+    long get(ColumnFamilyHandle handle) {
+        return counts.get(handle).get();
+    }
+}
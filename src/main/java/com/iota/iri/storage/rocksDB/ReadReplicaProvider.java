@@ -0,0 +1,250 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.storage.DatabaseStatistics;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serves reads from a read-only instance of a database that is written by another instance, in this or in another
+ * process, with a block cache of its own.
+ *
+ * A read-only instance sees the database as it was when it was opened, so it is reopened every
+ * {@code refreshInterval} seconds; reads lag behind the writing instance by up to that long. Writes are ignored.
+ *
+ * Each refresh opens a complete new instance, with block caches of {@code cacheSize} and its own open files, before the
+ * previous one is closed, so memory and file descriptors of the replica double during the swap, and the new instance
+ * starts with a cold cache. Short intervals trade that cost for fresher reads.
+ */
+public class ReadReplicaProvider implements PersistenceProvider {
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaProvider.class);
+
+    private final String dbPath;
+    private final String logPath;
+    private final int cacheSize;
+    private final Map<String, String> columnFamilyProfiles;
+    private final long refreshInterval;
+
+    // held for reading while the replica is used, for writing while it is replaced
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private RocksDBPersistenceProvider replica;
+    private ScheduledExecutorService scheduler;
+
+    public ReadReplicaProvider(String dbPath, String logPath, int cacheSize, Map<String, String> columnFamilyProfiles,
+                               long refreshInterval) {
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("The read replica refresh interval must be positive: " + refreshInterval);
+        }
+        this.dbPath = dbPath;
+        this.logPath = logPath;
+        this.cacheSize = cacheSize;
+        this.columnFamilyProfiles = columnFamilyProfiles;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public void init() throws Exception {
+        replica = open();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Read Replica Refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    private RocksDBPersistenceProvider open() throws Exception {
+        RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider(dbPath, logPath, cacheSize, columnFamilyProfiles);
+        provider.setReadOnly(true);
+        provider.init();
+        return provider;
+    }
+
+    private void refresh() {
+        RocksDBPersistenceProvider refreshed;
+        try {
+            refreshed = open();
+        } catch (Exception e) {
+            log.error("Error reopening read replica, serving the previous state.", e);
+            return;
+        }
+        RocksDBPersistenceProvider previous;
+        lock.writeLock().lock();
+        try {
+            previous = replica;
+            replica = refreshed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        previous.shutdown();
+    }
+
+    private <T> T read(Read<T> read) throws Exception {
+        lock.readLock().lock();
+        try {
+            return read.apply(replica);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private interface Read<T> {
+        T apply(RocksDBPersistenceProvider replica) throws Exception;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return replica != null && replica.isAvailable();
+    }
+
+    @Override
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            if (replica != null) {
+                replica.shutdown();
+                replica = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) throws Exception {
+        return false;
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) throws Exception {
+
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) throws Exception {
+        return false;
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) throws Exception {
+        return read(replica -> replica.exists(model, key));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
+        return read(replica -> replica.latest(model, indexModel));
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception {
+        return read(replica -> replica.keysWithMissingReferences(modelClass, otherClass));
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return read(replica -> replica.get(model, index));
+    }
+
+    @Override
+    public Map<Indexable, Persistable> getBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return read(replica -> replica.getBatch(model, indexes));
+    }
+
+    @Override
+    public Map<Indexable, Persistable> getMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return read(replica -> replica.getMetadataBatch(model, indexes));
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) throws Exception {
+        return read(replica -> replica.mayExist(model, index));
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        return read(replica -> replica.count(model));
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        try {
+            return read(replica -> replica.keysStartingWith(modelClass, value));
+        } catch (Exception e) {
+            log.error("Error reading keys from read replica.", e);
+            return Collections.emptySet();
+        }
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        return read(replica -> replica.seek(model, key));
+    }
+
+    @Override
+    public Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception {
+        return read(replica -> replica.firstKeyStartingWith(model, prefix));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
+        return read(replica -> replica.next(model, index));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
+        return read(replica -> replica.previous(model, index));
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> indexModel) throws Exception {
+        return read(replica -> replica.first(model, indexModel));
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        return false;
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+
+    }
+
+    @Override
+    public boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, ChunkConsumer consumer) throws Exception {
+        return read(replica -> replica.scan(model, index, threads, chunkSize, consumer));
+    }
+
+    @Override
+    public long archive(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return 0;
+    }
+
+    @Override
+    public boolean isArchived(Class<?> model, Indexable index) throws Exception {
+        return read(replica -> replica.isArchived(model, index));
+    }
+
+    @Override
+    public DatabaseStatistics getStatistics() throws Exception {
+        return read(RocksDBPersistenceProvider::getStatistics);
+    }
+}
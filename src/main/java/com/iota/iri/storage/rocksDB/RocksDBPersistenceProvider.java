@@ -1,10 +1,13 @@
 package com.iota.iri.storage.rocksDB;
 
 import com.iota.iri.model.*;
+import com.iota.iri.storage.DatabaseStatistics;
 import com.iota.iri.storage.Indexable;
 import com.iota.iri.storage.Persistable;
 import com.iota.iri.storage.PersistenceProvider;
 import com.iota.iri.utils.Pair;
+import com.iota.iri.utils.Serializer;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.rocksdb.*;
@@ -13,18 +16,72 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     private static final Logger log = LoggerFactory.getLogger(RocksDBPersistenceProvider.class);
-    private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
 
     private static final Pair<Indexable, Persistable> PAIR_OF_NULLS = new Pair<>(null, null);
 
+    // Hashes models are stored as one empty entry per member, keyed by the indexed hash followed by the member
+    private static final byte[] EDGE_VALUE = new byte[0];
+    private static final byte[] HASHES_FORMAT_KEY = "hashes-format".getBytes();
+    private static final byte HASHES_FORMAT_EDGES = 1;
+    // followed by the name of a family, holds the prefix length every file of the family was written with
+    private static final String PREFIX_LENGTH_KEY = "prefix-length-";
+    private static final int MIGRATION_BATCH_SIZE = 10000;
+    // scans split the key space into more ranges than workers, so the workers finishing early take over the rest
+    private static final int SCAN_RANGES_PER_THREAD = 4;
+
+    private static final TickerType[] TICKERS = {
+        TickerType.BLOCK_CACHE_HIT,
+        TickerType.BLOCK_CACHE_MISS,
+        TickerType.BLOOM_FILTER_USEFUL,
+        TickerType.MEMTABLE_HIT,
+        TickerType.MEMTABLE_MISS,
+        TickerType.BYTES_READ,
+        TickerType.BYTES_WRITTEN,
+        TickerType.STALL_MICROS,
+        TickerType.COMPACT_READ_BYTES,
+        TickerType.COMPACT_WRITE_BYTES,
+        TickerType.FLUSH_WRITE_BYTES,
+        TickerType.WAL_FILE_SYNCED
+    };
+    private static final HistogramType[] HISTOGRAMS = {
+        HistogramType.DB_GET,
+        HistogramType.DB_WRITE,
+        HistogramType.DB_SEEK,
+        HistogramType.DB_MULTIGET,
+        HistogramType.COMPACTION_TIME,
+        HistogramType.WAL_FILE_SYNC_MICROS
+    };
+    private static final String[] DATABASE_PROPERTIES = {
+        "rocksdb.num-running-compactions",
+        "rocksdb.num-running-flushes",
+        "rocksdb.actual-delayed-write-rate",
+        "rocksdb.is-write-stopped"
+    };
+    private static final String[] COLUMN_FAMILY_PROPERTIES = {
+        "rocksdb.cur-size-all-mem-tables",
+        "rocksdb.num-immutable-mem-table",
+        "rocksdb.total-sst-files-size",
+        "rocksdb.estimate-pending-compaction-bytes",
+        "rocksdb.estimate-table-readers-mem",
+        "rocksdb.estimate-num-keys"
+    };
+
     private final List<String> columnFamilyNames = Arrays.asList(
         new String(RocksDB.DEFAULT_COLUMN_FAMILY),
         "transaction",
@@ -34,45 +91,119 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         "address",
         "approvee",
         "bundle",
-        "tag"
+        "tag",
+        "transaction-flags",
+        "transaction-archive"
     );
 
-    private final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
-    private final SecureRandom seed = new SecureRandom();
+    private final List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
+    // replaced while the database is in use when a family is cleared, see recreateColumnFamily()
+    private final List<ColumnFamilyHandle> columnFamilyHandles = new CopyOnWriteArrayList<>();
+    // handles of cleared families, which readers may still hold, closed on shutdown
+    private final List<ColumnFamilyHandle> retiredHandles = new ArrayList<>();
+    private final List<Integer> configuredPrefixLengths = new ArrayList<>();
+    // the families whose files were all written with their configured prefix extractor, which alone can be prefix seeked
+    private final Map<ColumnFamilyHandle, Integer> prefixLengths = new ConcurrentHashMap<>();
 
     private final String dbPath;
     private final String logPath;
     private final int cacheSize;
-
-    private ColumnFamilyHandle transactionHandle;
-    private ColumnFamilyHandle transactionMetadataHandle;
-    private ColumnFamilyHandle milestoneHandle;
-    private ColumnFamilyHandle stateDiffHandle;
-    private ColumnFamilyHandle addressHandle;
-    private ColumnFamilyHandle approveeHandle;
-    private ColumnFamilyHandle bundleHandle;
-    private ColumnFamilyHandle tagHandle;
-
-    private Map<Class<?>, ColumnFamilyHandle> classTreeMap;
-    private Map<Class<?>, ColumnFamilyHandle> metadataReference;
+    private final Map<String, String> columnFamilyProfiles;
+
+    private volatile ColumnFamilyHandle transactionHandle;
+    private volatile ColumnFamilyHandle transactionMetadataHandle;
+    private volatile ColumnFamilyHandle milestoneHandle;
+    private volatile ColumnFamilyHandle stateDiffHandle;
+    private volatile ColumnFamilyHandle addressHandle;
+    private volatile ColumnFamilyHandle approveeHandle;
+    private volatile ColumnFamilyHandle bundleHandle;
+    private volatile ColumnFamilyHandle tagHandle;
+    private volatile ColumnFamilyHandle transactionFlagsHandle;
+    // bodies of transactions confirmed long ago, moved out of the transaction column family by archive()
+    private volatile ColumnFamilyHandle transactionArchiveHandle;
+
+    private volatile Map<Class<?>, ColumnFamilyHandle> classTreeMap;
+    private volatile Map<Class<?>, ColumnFamilyHandle> metadataReference;
 
     private RocksDB db;
+    private GroupCommit groupCommit;
+    private KeyCounts keyCounts;
+    private int groupCommitWrites = 1;
+    private long groupCommitDelay;
+    private boolean syncWrites;
+    private boolean statisticsEnabled;
+    private boolean readOnly;
+    private Statistics statistics;
     // DBOptions is only used in initDB(). However, it is closeable - so we keep a reference for shutdown.
     private DBOptions options;
-    private BloomFilter bloomFilter;
+    // per column family options, filters and the read options, all closed on shutdown
+    private final List<RocksObject> columnFamilyResources = new ArrayList<>();
+    // seeks across prefix boundaries must not be answered from prefix bloom filters
+    private ReadOptions totalOrderReadOptions;
+    private ReadOptions prefixReadOptions;
     private boolean available;
 
     public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize) {
+        this(dbPath, logPath, cacheSize, Collections.emptyMap());
+    }
+
+    /**
+     * @param columnFamilyProfiles {@link ColumnFamilyProfile} overrides by column family name
+     */
+    public RocksDBPersistenceProvider(String dbPath, String logPath, int cacheSize, Map<String, String> columnFamilyProfiles) {
         this.dbPath = dbPath;
         this.logPath = logPath;
         this.cacheSize = cacheSize;
+        this.columnFamilyProfiles = columnFamilyProfiles;
+    }
+
+    /**
+     * Coalesces {@link #saveBatch} and {@link #update} calls into a single write once {@code maxWrites} of them are
+     * pending, or {@code maxDelay} milliseconds after the last write. Must be called before {@link #init()}.
+     *
+     * @param maxWrites the number of writes per batch, 1 or less writes every call on its own
+     * @param sync      whether batch writes wait for the write ahead log to be synced
+     */
+    public void setGroupCommit(int maxWrites, long maxDelay, boolean sync) {
+        this.groupCommitWrites = maxWrites;
+        this.groupCommitDelay = maxDelay;
+        this.syncWrites = sync;
+    }
+
+    /**
+     * Makes RocksDB record the tickers and histograms reported by {@link #getStatistics()}, at a small cost on every
+     * operation. Must be called before {@link #init()}.
+     */
+    public void setStatisticsEnabled(boolean enabled) {
+        this.statisticsEnabled = enabled;
+    }
+
+    /**
+     * Opens the database read-only, next to an instance writing to it. The database is seen as it was when it was
+     * opened, key counts are estimated and writes fail. Must be called before {@link #init()}.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
     }
 
     @Override
-    public void init() {
+    public void init() throws Exception {
         log.info("Initializing Database Backend... ");
         initDB(dbPath, logPath);
         initClassTreeMap();
+        initPrefixLengths();
+        if (readOnly) {
+            available = true;
+            log.info("RocksDB persistence provider initialized read-only.");
+            return;
+        }
+        migrateHashesFormat();
+        keyCounts = new KeyCounts(Arrays.asList(transactionHandle, transactionArchiveHandle, milestoneHandle, stateDiffHandle));
+        keyCounts.load(db, columnFamilyHandles.get(0));
+        if (groupCommitWrites > 1) {
+            groupCommit = new GroupCommit(db, groupCommitWrites, groupCommitDelay, syncWrites);
+            groupCommit.start();
+        }
         available = true;
         log.info("RocksDB persistence provider initialized.");
     }
@@ -100,33 +231,101 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public void shutdown() {
+        if (groupCommit != null) {
+            groupCommit.shutdown();
+            groupCommit = null;
+        }
+        if (keyCounts != null) {
+            try {
+                keyCounts.store(db, columnFamilyHandles.get(0));
+            } catch (RocksDBException e) {
+                log.error("Error storing key counts.", e);
+            }
+        }
         for (final ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
             IOUtils.closeQuietly(columnFamilyHandle::close);
         }
-        IOUtils.closeQuietly(db::close, options::close, bloomFilter::close);
+        for (final ColumnFamilyHandle columnFamilyHandle : retiredHandles) {
+            IOUtils.closeQuietly(columnFamilyHandle::close);
+        }
+        retiredHandles.clear();
+        IOUtils.closeQuietly(db::close, options::close);
+        for (final RocksObject resource : columnFamilyResources) {
+            IOUtils.closeQuietly(resource::close);
+        }
+        columnFamilyResources.clear();
     }
 
     @Override
     public boolean save(Persistable thing, Indexable index) throws Exception {
+        flushPending();
         ColumnFamilyHandle handle = classTreeMap.get(thing.getClass());
-        db.put(handle, index.bytes(), thing.bytes());
+        if (thing instanceof Hashes) {
+            try (WriteBatch writeBatch = new WriteBatch();
+                 WriteOptions writeOptions = new WriteOptions()) {
+                removeEdges(writeBatch, handle, index.bytes());
+                putEdges(writeBatch::put, handle, index.bytes(), (Hashes) thing);
+                db.write(writeOptions, writeBatch);
+            }
+            return true;
+        }
+        synchronized (pendingLock()) {
+            synchronized (keyCounts) {
+                if (keyCounts.isCounted(handle) && read(handle, index.bytes()) == null) {
+                    keyCounts.add(handle, 1);
+                }
+                db.put(handle, index.bytes(), thing.bytes());
+            }
+        }
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
         if (referenceHandle != null) {
             db.put(referenceHandle, index.bytes(), thing.metadata());
         }
+        if (thing instanceof Transaction) {
+            db.put(transactionFlagsHandle, index.bytes(), ((Transaction) thing).flags());
+        }
         return true;
     }
 
     @Override
     public void delete(Class<?> model, Indexable index) throws Exception {
-        db.delete(classTreeMap.get(model), index.bytes());
+        flushPending();
+        if (isHashes(model)) {
+            try (WriteBatch writeBatch = new WriteBatch();
+                 WriteOptions writeOptions = new WriteOptions()) {
+                removeEdges(writeBatch, classTreeMap.get(model), index.bytes());
+                db.write(writeOptions, writeBatch);
+            }
+            return;
+        }
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        synchronized (pendingLock()) {
+            synchronized (keyCounts) {
+                if (keyCounts.isCounted(handle) && read(handle, index.bytes()) != null) {
+                    keyCounts.add(handle, -1);
+                }
+                db.delete(handle, index.bytes());
+                if (handle == transactionHandle) {
+                    db.delete(transactionArchiveHandle, index.bytes());
+                }
+            }
+        }
     }
 
     @Override
     public boolean exists(Class<?> model, Indexable key) throws Exception {
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return handle != null && db.get(handle, key.bytes()) != null;
+        if (handle != null && isHashes(model)) {
+            if (groupCommit != null && !groupCommit.keysStartingWith(handle, key.bytes()).isEmpty()) {
+                return true;
+            }
+            try (RocksIterator iterator = db.newIterator(handle, readOptions(handle, key.bytes()))) {
+                iterator.seek(key.bytes());
+                return iterator.isValid() && keyStartsWithValue(key.bytes(), iterator.key());
+            }
+        }
+        return handle != null && read(handle, key.bytes()) != null;
     }
 
     @Override
@@ -134,13 +333,22 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         ColumnFamilyHandle handle = classTreeMap.get(model);
         ColumnFamilyHandle otherHandle = classTreeMap.get(other);
 
-        try (RocksIterator iterator = db.newIterator(handle)) {
+        boolean edges = isHashes(model);
+        flushPending();
+
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions)) {
             Set<Indexable> indexables = null;
+            byte[] previous = null;
 
             for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                if (db.get(otherHandle, iterator.key()) == null) {
+                byte[] key = edges ? edgePrefix(iterator.key()) : iterator.key();
+                if (Arrays.equals(key, previous)) {
+                    continue;
+                }
+                previous = key;
+                if (read(otherHandle, key) == null) {
                     indexables = indexables == null ? new HashSet<>() : indexables;
-                    indexables.add(new Hash(iterator.key()));
+                    indexables.add(new Hash(key));
                 }
             }
             return indexables == null ? Collections.emptySet() : Collections.unmodifiableSet(indexables);
@@ -149,45 +357,186 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public Persistable get(Class<?> model, Indexable index) throws Exception {
+        if (isHashes(model)) {
+            if (index == null) {
+                return (Persistable) model.newInstance();
+            }
+            ColumnFamilyHandle handle = classTreeMap.get(model);
+            try (RocksIterator iterator = db.newIterator(handle, readOptions(handle, index.bytes()))) {
+                return readEdges(model, iterator, index.bytes());
+            }
+        }
         Persistable object = (Persistable) model.newInstance();
-        object.read(db.get(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
+        object.read(read(classTreeMap.get(model), index == null ? new byte[0] : index.bytes()));
 
         ColumnFamilyHandle referenceHandle = metadataReference.get(model);
         if (referenceHandle != null) {
-            object.readMetadata(db.get(referenceHandle, index == null ? new byte[0] : index.bytes()));
+            object.readMetadata(read(referenceHandle, index == null ? new byte[0] : index.bytes()));
         }
+        readFlags(object, index == null ? new byte[0] : index.bytes());
         return object;
     }
 
+    @Override
+    public Map<Indexable, Persistable> getBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return multiGet(model, indexes, true);
+    }
+
+    @Override
+    public Map<Indexable, Persistable> getMetadataBatch(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        return multiGet(model, indexes, false);
+    }
+
+    /**
+     * Reads all {@code indexes} of {@code model}, and their metadata if the model has any, in a single multiGet.
+     * Like {@link #get}, every requested index is present in the result, possibly with an empty object.
+     */
+    private Map<Indexable, Persistable> multiGet(Class<?> model, Collection<Indexable> indexes, boolean withBody) throws Exception {
+        if (isHashes(model)) {
+            Map<Indexable, Persistable> objects = new HashMap<>(indexes.size() * 2);
+            for (Indexable index : indexes) {
+                objects.put(index, withBody ? get(model, index) : (Persistable) model.newInstance());
+            }
+            return objects;
+        }
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        ColumnFamilyHandle referenceHandle = metadataReference.get(model);
+        boolean withFlags = model == Transaction.class;
+
+        List<ColumnFamilyHandle> handles = new ArrayList<>(indexes.size() * 3);
+        List<byte[]> keys = new ArrayList<>(indexes.size() * 3);
+        // multiGet returns its values keyed by identity, so each lookup gets its own key array
+        List<byte[]> bodyKeys = new ArrayList<>(indexes.size());
+        List<byte[]> metadataKeys = new ArrayList<>(indexes.size());
+        List<byte[]> flagsKeys = new ArrayList<>(indexes.size());
+        for (Indexable index : indexes) {
+            byte[] bodyKey = withBody ? index.bytes().clone() : null;
+            byte[] metadataKey = referenceHandle != null ? index.bytes().clone() : null;
+            byte[] flagsKey = withFlags ? index.bytes().clone() : null;
+            if (bodyKey != null) {
+                handles.add(handle);
+                keys.add(bodyKey);
+            }
+            if (metadataKey != null) {
+                handles.add(referenceHandle);
+                keys.add(metadataKey);
+            }
+            if (flagsKey != null) {
+                handles.add(transactionFlagsHandle);
+                keys.add(flagsKey);
+            }
+            bodyKeys.add(bodyKey);
+            metadataKeys.add(metadataKey);
+            flagsKeys.add(flagsKey);
+        }
+
+        Map<byte[], byte[]> values = keys.isEmpty() ? Collections.emptyMap() : db.multiGet(handles, keys);
+        Map<Indexable, Persistable> objects = new HashMap<>(indexes.size() * 2);
+        int i = 0;
+        for (Indexable index : indexes) {
+            Persistable object = (Persistable) model.newInstance();
+            if (bodyKeys.get(i) != null) {
+                byte[] body = pendingOr(values, handle, bodyKeys.get(i));
+                if (body == null && handle == transactionHandle) {
+                    body = db.get(transactionArchiveHandle, bodyKeys.get(i));
+                }
+                object.read(body);
+            }
+            if (metadataKeys.get(i) != null) {
+                object.readMetadata(pendingOr(values, referenceHandle, metadataKeys.get(i)));
+            }
+            if (flagsKeys.get(i) != null) {
+                ((Transaction) object).readFlags(pendingOr(values, transactionFlagsHandle, flagsKeys.get(i)));
+            }
+            objects.put(index, object);
+            i++;
+        }
+        return objects;
+    }
+
     @Override
     public boolean mayExist(Class<?> model, Indexable index) {
         ColumnFamilyHandle handle = classTreeMap.get(model);
-        return db.keyMayExist(handle, index.bytes(), new StringBuilder());
+        if (isHashes(model)) {
+            try {
+                return exists(model, index);
+            } catch (Exception e) {
+                return true;
+            }
+        }
+        if (groupCommit != null && groupCommit.get(handle, index.bytes()) != null) {
+            return true;
+        }
+        return db.keyMayExist(handle, index.bytes(), new StringBuilder())
+            || handle == transactionHandle && db.keyMayExist(transactionArchiveHandle, index.bytes(), new StringBuilder());
     }
 
     @Override
     public long count(Class<?> model) throws Exception {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        if (keyCounts != null && keyCounts.isCounted(handle)) {
+            return keyCounts.get(handle) + (handle == transactionHandle ? keyCounts.get(transactionArchiveHandle) : 0);
+        }
         return getCountEstimate(model);
     }
 
+    @Override
+    public DatabaseStatistics getStatistics() throws RocksDBException {
+        DatabaseStatistics sample = new DatabaseStatistics();
+        if (statistics != null) {
+            for (TickerType ticker : TICKERS) {
+                sample.getTickers().put(ticker.name(), statistics.getTickerCount(ticker));
+            }
+            for (HistogramType histogram : HISTOGRAMS) {
+                HistogramData data = statistics.getHistogramData(histogram);
+                Map<String, Double> percentiles = new LinkedHashMap<>();
+                percentiles.put("median", data.getMedian());
+                percentiles.put("p95", data.getPercentile95());
+                percentiles.put("p99", data.getPercentile99());
+                percentiles.put("average", data.getAverage());
+                sample.getHistograms().put(histogram.name(), percentiles);
+            }
+        }
+        for (String property : DATABASE_PROPERTIES) {
+            sample.getDatabase().put(property, db.getLongProperty(property));
+        }
+        for (int i = 0; i < columnFamilyNames.size(); i++) {
+            Map<String, Long> properties = new LinkedHashMap<>();
+            for (String property : COLUMN_FAMILY_PROPERTIES) {
+                properties.put(property, db.getLongProperty(columnFamilyHandles.get(i), property));
+            }
+            sample.getColumnFamilies().put(columnFamilyNames.get(i), properties);
+        }
+        return sample;
+    }
+
     private long getCountEstimate(Class<?> model) throws RocksDBException {
-        ColumnFamilyHandle handle = classTreeMap.get(model);
-        return db.getLongProperty(handle, "rocksdb.estimate-num-keys");
+        long estimate = 0;
+        for (ColumnFamilyHandle handle : storedHandles(classTreeMap.get(model))) {
+            estimate += db.getLongProperty(handle, "rocksdb.estimate-num-keys");
+        }
+        return estimate;
     }
 
     @Override
     public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
         Objects.requireNonNull(value, "value byte[] cannot be null");
         ColumnFamilyHandle handle = classTreeMap.get(modelClass);
+        boolean edges = isHashes(modelClass);
         Set<Indexable> keys = null;
+        try {
+            flushPending();
+        } catch (RocksDBException e) {
+            log.error("Error writing pending batch.", e);
+        }
         if (handle != null) {
-            try (RocksIterator iterator = db.newIterator(handle)) {
+            try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions)) {
                 iterator.seek(new Hash(value, 0, value.length).bytes());
 
                 byte[] found;
                 while (iterator.isValid() && keyStartsWithValue(value, found = iterator.key())) {
                     keys = keys == null ? new HashSet<>() : keys;
-                    keys.add(new Hash(found));
+                    keys.add(new Hash(edges ? edgePrefix(found) : found));
                     iterator.next();
                 }
             }
@@ -214,14 +563,34 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
     @Override
     public Persistable seek(Class<?> model, byte[] key) throws Exception {
-        Set<Indexable> hashes = keysStartingWith(model, key);
-        if (hashes.isEmpty()) {
-            return get(model, null);
+        Indexable index = firstKeyStartingWith(model, key);
+        return get(model, index);
+    }
+
+    @Override
+    public Indexable firstKeyStartingWith(Class<?> model, byte[] prefix) throws Exception {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        if (handle == null) {
+            return null;
+        }
+        byte[] found = null;
+        if (groupCommit != null) {
+            List<byte[]> pending = groupCommit.keysStartingWith(handle, prefix);
+            found = pending.isEmpty() ? null : pending.get(0);
+        }
+        for (ColumnFamilyHandle storedHandle : storedHandles(handle)) {
+            try (RocksIterator iterator = db.newIterator(storedHandle, readOptions(storedHandle, prefix))) {
+                iterator.seek(prefix);
+                if (iterator.isValid() && keyStartsWithValue(prefix, iterator.key())
+                    && (found == null || GroupCommit.UNSIGNED_ORDER.compare(iterator.key(), found) < 0)) {
+                    found = iterator.key();
+                }
+            }
         }
-        if (hashes.size() == 1) {
-            return get(model, (Indexable) hashes.toArray()[0]);
+        if (found == null) {
+            return null;
         }
-        return get(model, (Indexable) hashes.toArray()[seed.nextInt(hashes.size())]);
+        return new Hash(isHashes(model) ? edgePrefix(found) : found);
     }
 
     private Pair<Indexable, Persistable> modelAndIndex(Class<?> model, Class<? extends Indexable> index, RocksIterator iterator)
@@ -232,6 +601,11 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         }
 
         Indexable indexable = index.newInstance();
+        if (isHashes(model)) {
+            byte[] prefix = edgePrefix(iterator.key());
+            indexable.read(prefix);
+            return new Pair<>(indexable, readEdges(model, iterator, prefix));
+        }
         indexable.read(iterator.key());
 
         Persistable object = (Persistable) model.newInstance();
@@ -241,21 +615,32 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         if (referenceHandle != null) {
             object.readMetadata(db.get(referenceHandle, iterator.key()));
         }
+        readFlags(object, iterator.key());
         return new Pair<>(indexable, object);
     }
 
     @Override
     public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
-            iterator.seek(index.bytes());
-            iterator.next();
+        flushPending();
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
+            if (isHashes(model)) {
+                byte[] nextPrefix = nextPrefix(index.bytes());
+                if (nextPrefix == null) {
+                    return PAIR_OF_NULLS;
+                }
+                iterator.seek(nextPrefix);
+            } else {
+                iterator.seek(index.bytes());
+                iterator.next();
+            }
             return modelAndIndex(model, index.getClass(), iterator);
         }
     }
 
     @Override
     public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        flushPending();
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seek(index.bytes());
             iterator.prev();
             return modelAndIndex(model, index.getClass(), iterator);
@@ -265,7 +650,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        flushPending();
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seekToLast();
             return modelAndIndex(model, (Class<Indexable>) indexModel, iterator);
         }
@@ -274,7 +660,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     @SuppressWarnings("unchecked")
     @Override
     public Pair<Indexable, Persistable> first(Class<?> model, Class<?> index) throws Exception {
-        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model))) {
+        flushPending();
+        try (RocksIterator iterator = db.newIterator(classTreeMap.get(model), totalOrderReadOptions)) {
             iterator.seekToFirst();
             return modelAndIndex(model, (Class<Indexable>) index, iterator);
         }
@@ -283,66 +670,497 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
     // 2018 March 28 - Unused code
     public boolean merge(Persistable model, Indexable index) throws Exception {
         boolean exists = mayExist(model.getClass(), index);
+        if (model instanceof Hashes) {
+            saveBatch(Collections.singletonList(new Pair<>(index, model)));
+            return exists;
+        }
         db.merge(classTreeMap.get(model.getClass()), index.bytes(), model.bytes());
         return exists;
     }
 
     @Override
     public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        // batches as large as a group would only bloat the pending writes, they are written right away
+        if (groupCommit != null && models.size() < groupCommitWrites) {
+            synchronized (groupCommit) {
+                synchronized (keyCounts) {
+                    // pending puts are visible to the existence checks, so they can be counted right away
+                    putBatch(groupCommit::put, models, false).forEach(keyCounts::add);
+                }
+                groupCommit.commit();
+            }
+            return true;
+        }
+        flushPending();
         try (WriteBatch writeBatch = new WriteBatch();
              WriteOptions writeOptions = new WriteOptions()) {
 
-            for (Pair<Indexable, Persistable> entry : models) {
+            synchronized (pendingLock()) {
+                synchronized (keyCounts) {
+                    Map<ColumnFamilyHandle, Long> added = putBatch(writeBatch::put, models, false);
+                    db.write(writeOptions, writeBatch);
+                    added.forEach(keyCounts::add);
+                }
+            }
+            return true;
+        }
+    }
 
-                Indexable key = entry.low;
-                Persistable value = entry.hi;
+    /**
+     * Stores a large batch by writing it into one sorted SST file per column family and ingesting the files, which
+     * bypasses the write ahead log and the memtables. Meant for bulk imports into a database that is not being
+     * written to otherwise.
+     *
+     * The ingested files replace the values of the keys they hold, so objects that are already stored are skipped
+     * and keep their metadata and flags; only the members of Hashes sets are merged.
+     *
+     * @return the number of transactions added
+     */
+    public long ingest(List<Pair<Indexable, Persistable>> models) throws Exception {
+        flushPending();
+        Map<ColumnFamilyHandle, TreeMap<byte[], byte[]>> sorted = new HashMap<>();
+        Path directory = Files.createTempDirectory(Paths.get(dbPath), "ingest");
+        try (EnvOptions envOptions = new EnvOptions();
+             // move the files into the database and let them replace older values of their keys
+             IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions(true, true, true, true)) {
+
+            synchronized (pendingLock()) {
+                synchronized (keyCounts) {
+                    Map<ColumnFamilyHandle, Long> added = putBatch((handle, key, value) ->
+                        sorted.computeIfAbsent(handle, h -> new TreeMap<>(GroupCommit.UNSIGNED_ORDER)).put(key, value), models, true);
+                    for (Map.Entry<ColumnFamilyHandle, TreeMap<byte[], byte[]>> entry : sorted.entrySet()) {
+                        int i = columnFamilyHandles.indexOf(entry.getKey());
+                        String file = directory.resolve(columnFamilyNames.get(i) + ".sst").toString();
+                        try (Options sstOptions = new Options(options, columnFamilyDescriptors.get(i).columnFamilyOptions());
+                             SstFileWriter writer = new SstFileWriter(envOptions, sstOptions)) {
+                            writer.open(file);
+                            for (Map.Entry<byte[], byte[]> keyValue : entry.getValue().entrySet()) {
+                                writer.put(keyValue.getKey(), keyValue.getValue());
+                            }
+                            writer.finish();
+                        }
+                        db.ingestExternalFile(entry.getKey(), Collections.singletonList(file), ingestOptions);
+                    }
+                    added.forEach(keyCounts::add);
+                    return added.getOrDefault(transactionHandle, 0L);
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
 
-                ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
-                ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+    /**
+     * @param keepStored whether objects that are already stored, or were put earlier in {@code models}, are skipped
+     *                   instead of being overwritten along with their metadata and flags
+     * @return the number of new keys per column family, counted for the counted families and if {@code keepStored}
+     */
+    private Map<ColumnFamilyHandle, Long> putBatch(Writer writer, List<Pair<Indexable, Persistable>> models,
+                                                   boolean keepStored) throws RocksDBException {
+        Map<ColumnFamilyHandle, Long> added = new HashMap<>();
+        Map<ColumnFamilyHandle, Set<ByteBuffer>> addedKeys = new HashMap<>();
+        for (Pair<Indexable, Persistable> entry : models) {
+
+            Indexable key = entry.low;
+            Persistable value = entry.hi;
+
+            ColumnFamilyHandle handle = classTreeMap.get(value.getClass());
+            ColumnFamilyHandle referenceHandle = metadataReference.get(value.getClass());
+
+            if (value instanceof Hashes) {
+                putEdges(writer, handle, key.bytes(), (Hashes) value);
+            } else {
+                if (keepStored || keyCounts.isCounted(handle)) {
+                    boolean isNew = read(handle, key.bytes()) == null
+                        && addedKeys.computeIfAbsent(handle, h -> new HashSet<>()).add(ByteBuffer.wrap(key.bytes()));
+                    if (isNew) {
+                        added.merge(handle, 1L, Long::sum);
+                    } else if (keepStored) {
+                        continue;
+                    }
+                }
+                writer.put(handle, key.bytes(), value.bytes());
+            }
+            if (referenceHandle != null) {
+                writer.put(referenceHandle, key.bytes(), value.metadata());
+            }
+            if (value instanceof Transaction) {
+                writer.put(transactionFlagsHandle, key.bytes(), ((Transaction) value).flags());
+            }
+        }
+        return added;
+    }
 
-                if (value.merge()) {
-                    writeBatch.merge(handle, key.bytes(), value.bytes());
-                } else {
-                    writeBatch.put(handle, key.bytes(), value.bytes());
+    @Override
+    public boolean scan(Class<?> model, Class<?> index, int threads, int chunkSize, ChunkConsumer consumer) throws Exception {
+        ColumnFamilyHandle handle = classTreeMap.get(model);
+        if (handle == null || isHashes(model)) {
+            return false;
+        }
+        flushPending();
+        int ranges = Math.min(256, Math.max(1, threads) * SCAN_RANGES_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try (ReadOptions readOptions = new ReadOptions().setTotalOrderSeek(true).setFillCache(false)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ColumnFamilyHandle storedHandle : storedHandles(handle)) {
+                for (int i = 0; i < ranges; i++) {
+                    // keys are ordered by their unsigned bytes, so ranges of the first byte cover the key space in order
+                    int start = 256 * i / ranges, end = 256 * (i + 1) / ranges;
+                    futures.add(executor.submit(() -> {
+                        scanRange(model, index, storedHandle, readOptions, start, end, chunkSize, consumer);
+                        return null;
+                    }));
                 }
-                if (referenceHandle != null) {
-                    writeBatch.put(referenceHandle, key.bytes(), value.metadata());
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    futures.forEach(f -> f.cancel(true));
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                 }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+        return true;
+    }
 
-            db.write(writeOptions, writeBatch);
-            return true;
+    private void scanRange(Class<?> model, Class<?> index, ColumnFamilyHandle handle, ReadOptions readOptions, int start, int end,
+                           int chunkSize, ChunkConsumer consumer) throws Exception {
+        List<Pair<Indexable, Persistable>> chunk = new ArrayList<>(chunkSize);
+        try (RocksIterator iterator = db.newIterator(handle, readOptions)) {
+            for (iterator.seek(new byte[]{(byte) start}); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if ((key[0] & 0xFF) >= end) {
+                    break;
+                }
+                Indexable indexable = (Indexable) index.newInstance();
+                indexable.read(key);
+                Persistable object = (Persistable) model.newInstance();
+                object.read(iterator.value());
+                chunk.add(new Pair<>(indexable, object));
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
         }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    private interface Writer {
+        void put(ColumnFamilyHandle handle, byte[] key, byte[] value) throws RocksDBException;
     }
 
+    private void flushPending() throws RocksDBException {
+        if (groupCommit != null) {
+            groupCommit.flush();
+        }
+    }
+
+    /**
+     * Moves the bodies of {@code indexes} from the transaction column family to the archive column family, which is
+     * compressed harder and gets a smaller share of the block cache. Archived bodies remain readable through
+     * {@link #get}, {@link #getBatch}, {@link #exists} and {@link #scan}, but are skipped by the iterating lookups
+     * {@link #first}, {@link #next}, {@link #previous}, {@link #latest} and {@link #keysStartingWith}. Metadata and
+     * flags stay where they are.
+     *
+     * @return the number of bodies moved
+     */
     @Override
-    public void clear(Class<?> column) throws Exception {
-        flushHandle(classTreeMap.get(column));
+    public long archive(Class<?> model, Collection<Indexable> indexes) throws Exception {
+        if (model != Transaction.class) {
+            return 0;
+        }
+        flushPending();
+        long archived = 0;
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            synchronized (keyCounts) {
+                for (Indexable index : indexes) {
+                    byte[] body = db.get(transactionHandle, index.bytes());
+                    if (body != null) {
+                        writeBatch.put(transactionArchiveHandle, index.bytes(), body);
+                        writeBatch.remove(transactionHandle, index.bytes());
+                        archived++;
+                    }
+                }
+                db.write(writeOptions, writeBatch);
+                keyCounts.add(transactionHandle, -archived);
+                keyCounts.add(transactionArchiveHandle, archived);
+            }
+        }
+        return archived;
     }
 
     @Override
-    public void clearMetadata(Class<?> column) throws Exception {
-        flushHandle(metadataReference.get(column));
+    public boolean isArchived(Class<?> model, Indexable index) throws Exception {
+        return model == Transaction.class && db.get(transactionArchiveHandle, index.bytes()) != null;
+    }
+
+    /**
+     * @return the column families holding the values of {@code handle}, the transaction bodies being split between
+     * the transaction and the archive column families
+     */
+    private List<ColumnFamilyHandle> storedHandles(ColumnFamilyHandle handle) {
+        return handle == transactionHandle ? Arrays.asList(transactionHandle, transactionArchiveHandle)
+            : Collections.singletonList(handle);
     }
 
-    private void flushHandle(ColumnFamilyHandle handle) throws RocksDBException {
-        List<byte[]> itemsToDelete = new ArrayList<>();
-        try (RocksIterator iterator = db.newIterator(handle)) {
+    /**
+     * @return the monitor to take before the key counts wherever pending writes are read or added while counting,
+     * which is the group commit when it is enabled. Taking it first everywhere keeps the lock order of the counting
+     * paths the same as that of the group commit itself.
+     */
+    private Object pendingLock() {
+        GroupCommit pending = groupCommit;
+        return pending != null ? pending : keyCounts;
+    }
+
+    private byte[] read(ColumnFamilyHandle handle, byte[] key) throws RocksDBException {
+        byte[] value = groupCommit == null ? null : groupCommit.get(handle, key);
+        if (value == null) {
+            value = db.get(handle, key);
+        }
+        if (value == null && handle == transactionHandle) {
+            value = db.get(transactionArchiveHandle, key);
+        }
+        return value;
+    }
+
+    private byte[] pendingOr(Map<byte[], byte[]> values, ColumnFamilyHandle handle, byte[] key) {
+        byte[] value = groupCommit == null ? null : groupCommit.get(handle, key);
+        return value != null ? value : values.get(key);
+    }
 
-            for (iterator.seekToLast(); iterator.isValid(); iterator.prev()) {
-                itemsToDelete.add(iterator.key());
+    private void readFlags(Persistable object, byte[] key) throws RocksDBException {
+        if (object instanceof Transaction) {
+            ((Transaction) object).readFlags(read(transactionFlagsHandle, key));
+        }
+    }
+
+    private static boolean isHashes(Class<?> model) {
+        return Hashes.class.isAssignableFrom(model);
+    }
+
+    private static byte[] edgeKey(byte[] index, byte[] member, int offset) {
+        byte[] key = new byte[Hash.SIZE_IN_BYTES * 2];
+        System.arraycopy(index, 0, key, 0, Hash.SIZE_IN_BYTES);
+        System.arraycopy(member, offset, key, Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES);
+        return key;
+    }
+
+    private static byte[] edgePrefix(byte[] key) {
+        return Arrays.copyOf(key, Hash.SIZE_IN_BYTES);
+    }
+
+    /**
+     * @return the smallest prefix sorting after every key starting with {@code prefix}, or {@code null} if none exists
+     */
+    private static byte[] nextPrefix(byte[] prefix) {
+        byte[] next = prefix.clone();
+        for (int i = next.length - 1; i >= 0; i--) {
+            if (++next[i] != 0) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private static void putEdges(Writer writer, ColumnFamilyHandle handle, byte[] index, Hashes hashes) throws RocksDBException {
+        for (Hash member : hashes.set) {
+            writer.put(handle, edgeKey(index, member.bytes(), 0), EDGE_VALUE);
+        }
+    }
+
+    private void removeEdges(WriteBatch writeBatch, ColumnFamilyHandle handle, byte[] index) {
+        try (RocksIterator iterator = db.newIterator(handle, readOptions(handle, index))) {
+            byte[] key;
+            for (iterator.seek(index); iterator.isValid() && keyStartsWithValue(index, key = iterator.key()); iterator.next()) {
+                writeBatch.remove(handle, key);
             }
         }
-        if (itemsToDelete.size() > 0) {
-            log.info("Flushing flags. Amount to delete: " + itemsToDelete.size());
+    }
+
+    private Persistable readEdges(Class<?> model, RocksIterator iterator, byte[] index)
+        throws InstantiationException, IllegalAccessException {
+
+        Hashes hashes = (Hashes) model.newInstance();
+        byte[] key;
+        for (iterator.seek(index); iterator.isValid() && keyStartsWithValue(index, key = iterator.key()); iterator.next()) {
+            hashes.set.add(new Hash(key, Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES));
         }
-        for (byte[] itemToDelete : itemsToDelete) {
-            db.delete(handle, itemToDelete);
+        if (groupCommit != null) {
+            for (byte[] pending : groupCommit.keysStartingWith(classTreeMap.get(model), index)) {
+                hashes.set.add(new Hash(pending, Hash.SIZE_IN_BYTES, Hash.SIZE_IN_BYTES));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * @return read options answering a seek for keys starting with {@code prefix} from the prefix bloom filters, if
+     * the prefix is exactly what the extractor of every file of the family extracts
+     */
+    private ReadOptions readOptions(ColumnFamilyHandle handle, byte[] prefix) {
+        Integer prefixLength = prefixLengths.get(handle);
+        return prefixLength != null && prefixLength == prefix.length ? prefixReadOptions : totalOrderReadOptions;
+    }
+
+    /**
+     * Enables prefix seeks on the families whose files were all written with their configured prefix extractor.
+     * Prefix seeks are not reliable over files written without an extractor or with another one, so the prefix length
+     * of a family is recorded while it is empty and forgotten as soon as it is opened with another one. Families
+     * written by older versions are seeked in total order until they are cleared.
+     */
+    private void initPrefixLengths() throws RocksDBException {
+        ColumnFamilyHandle defaultHandle = columnFamilyHandles.get(0);
+        for (int i = 1; i < columnFamilyHandles.size(); i++) {
+            ColumnFamilyHandle handle = columnFamilyHandles.get(i);
+            int prefixLength = configuredPrefixLengths.get(i);
+            byte[] key = (PREFIX_LENGTH_KEY + columnFamilyNames.get(i)).getBytes();
+            byte[] stored = db.get(defaultHandle, key);
+            boolean written = stored != null && prefixLength > 0 && Serializer.getInteger(stored) == prefixLength;
+            if (!written && !readOnly) {
+                if (stored != null) {
+                    db.delete(defaultHandle, key);
+                }
+                if (prefixLength > 0 && isEmpty(handle)) {
+                    db.put(defaultHandle, key, Serializer.serialize(prefixLength));
+                    written = true;
+                } else if (prefixLength > 0) {
+                    log.info("Column family {} holds files written without its prefix extractor, it is seeked in "
+                        + "total order until it is cleared.", columnFamilyNames.get(i));
+                }
+            }
+            if (written) {
+                prefixLengths.put(handle, prefixLength);
+            }
+        }
+    }
+
+    private boolean isEmpty(ColumnFamilyHandle handle) {
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions)) {
+            iterator.seekToFirst();
+            return !iterator.isValid();
+        }
+    }
+
+    /**
+     * Converts Hashes columns written by older versions, which kept each set as a single comma delimited value built
+     * by the string append merge operator, to one entry per member. Converted keys are removed, so an interrupted
+     * migration simply resumes on the next start.
+     */
+    private void migrateHashesFormat() throws RocksDBException {
+        ColumnFamilyHandle defaultHandle = columnFamilyHandles.get(0);
+        byte[] format = db.get(defaultHandle, HASHES_FORMAT_KEY);
+        if (format != null && format.length > 0 && format[0] >= HASHES_FORMAT_EDGES) {
+            return;
+        }
+        for (Map.Entry<Class<?>, ColumnFamilyHandle> entry : classTreeMap.entrySet()) {
+            if (isHashes(entry.getKey())) {
+                migrateToEdges(entry.getKey(), entry.getValue());
+            }
+        }
+        db.put(defaultHandle, HASHES_FORMAT_KEY, new byte[]{HASHES_FORMAT_EDGES});
+    }
+
+    private void migrateToEdges(Class<?> model, ColumnFamilyHandle handle) throws RocksDBException {
+        long migrated = 0;
+        try (RocksIterator iterator = db.newIterator(handle, totalOrderReadOptions);
+             WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if (key.length != Hash.SIZE_IN_BYTES) {
+                    continue;
+                }
+                byte[] value = iterator.value();
+                for (int i = 0; i + Hash.SIZE_IN_BYTES <= value.length; i += 1 + Hash.SIZE_IN_BYTES) {
+                    writeBatch.put(handle, edgeKey(key, value, i), EDGE_VALUE);
+                }
+                writeBatch.remove(handle, key);
+                if (++migrated % MIGRATION_BATCH_SIZE == 0) {
+                    db.write(writeOptions, writeBatch);
+                    writeBatch.clear();
+                    log.info("Migrated {} {} sets.", migrated, model.getSimpleName());
+                }
+            }
+            db.write(writeOptions, writeBatch);
+        }
+        if (migrated > 0) {
+            log.info("Migrated {} {} sets to the per-member layout.", migrated, model.getSimpleName());
+        }
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+        flushPending();
+        recreateColumnFamily(classTreeMap.get(column));
+        if (column == Transaction.class) {
+            recreateColumnFamily(transactionArchiveHandle);
+        }
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+        flushPending();
+        recreateColumnFamily(metadataReference.get(column));
+        if (column == Transaction.class) {
+            recreateColumnFamily(transactionFlagsHandle);
+        }
+    }
+
+    /**
+     * Clears a column family by dropping it and creating it anew with the same options, which removes its files at
+     * once instead of deleting every key. Meant to be used while the node starts, before anything else uses the
+     * family.
+     *
+     * The handle of the family is replaced while holding the same monitors as the writers, so no counted write is
+     * in progress meanwhile. Readers that do not take them may still use the dropped family, which RocksDB keeps
+     * alive until its handle is closed, so the old handle is only closed on shutdown.
+     */
+    private void recreateColumnFamily(ColumnFamilyHandle handle) throws Exception {
+        synchronized (pendingLock()) {
+            synchronized (keyCounts) {
+                int i = columnFamilyHandles.indexOf(handle);
+                log.info("Clearing column family {}.", columnFamilyNames.get(i));
+                db.dropColumnFamily(handle);
+                ColumnFamilyHandle recreated = db.createColumnFamily(columnFamilyDescriptors.get(i));
+                if (configuredPrefixLengths.get(i) > 0) {
+                    // the new family is empty, so all of its files will be written with its extractor
+                    db.put(columnFamilyHandles.get(0), (PREFIX_LENGTH_KEY + columnFamilyNames.get(i)).getBytes(),
+                        Serializer.serialize(configuredPrefixLengths.get(i)));
+                    prefixLengths.put(recreated, configuredPrefixLengths.get(i));
+                }
+                columnFamilyHandles.set(i, recreated);
+                keyCounts.replace(handle, recreated);
+                fillmodelColumnHandles();
+                initClassTreeMap();
+                prefixLengths.remove(handle);
+                retiredHandles.add(handle);
+            }
         }
     }
 
     @Override
     public boolean update(Persistable thing, Indexable index, String item) throws Exception {
+        // only the flags change once a transaction is stored, the rest of its metadata is written once
+        if (thing instanceof Transaction) {
+            if (groupCommit != null) {
+                synchronized (groupCommit) {
+                    groupCommit.put(transactionFlagsHandle, index.bytes(), ((Transaction) thing).flags());
+                    groupCommit.commit();
+                }
+            } else {
+                db.put(transactionFlagsHandle, index.bytes(), ((Transaction) thing).flags());
+            }
+            return false;
+        }
         ColumnFamilyHandle referenceHandle = metadataReference.get(thing.getClass());
         if (referenceHandle != null) {
             db.put(referenceHandle, index.bytes(), thing.metadata());
@@ -414,42 +1232,77 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
 
             options.setMaxSubcompactions(Runtime.getRuntime().availableProcessors());
 
-            bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY);
+            options.setAllowConcurrentMemtableWrite(true);
 
-            BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig().setFilter(bloomFilter);
-            blockBasedTableConfig
-                .setFilter(bloomFilter)
-                .setCacheNumShardBits(2)
-                .setBlockSizeDeviation(10)
-                .setBlockRestartInterval(16)
-                .setBlockCacheSize(cacheSize * SizeUnit.KB)
-                .setBlockCacheCompressedNumShardBits(10)
-                .setBlockCacheCompressedSize(32 * SizeUnit.KB);
+            if (statisticsEnabled) {
+                statistics = options.createStatistics().statisticsPtr();
+            }
 
-            options.setAllowConcurrentMemtableWrite(true);
+            totalOrderReadOptions = new ReadOptions().setTotalOrderSeek(true);
+            prefixReadOptions = new ReadOptions().setPrefixSameAsStart(true);
+            columnFamilyResources.add(totalOrderReadOptions);
+            columnFamilyResources.add(prefixReadOptions);
 
             MergeOperator mergeOperator = new StringAppendOperator();
-            ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions()
-                .setMergeOperator(mergeOperator)
-                .setTableFormatConfig(blockBasedTableConfig)
-                .setMaxWriteBufferNumber(2)
-                .setWriteBufferSize(2 * SizeUnit.MB);
+            columnFamilyResources.add(mergeOperator);
 
-            List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>();
+            List<ColumnFamilyProfile> profiles = new ArrayList<>();
             for (String name : columnFamilyNames) {
-                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions));
+                ColumnFamilyProfile profile = ColumnFamilyProfile.forFamily(name, columnFamilyProfiles.get(name));
+                columnFamilyDescriptors.add(new ColumnFamilyDescriptor(name.getBytes(), columnFamilyOptions(profile, mergeOperator)));
+                profiles.add(profile);
             }
 
-            db = RocksDB.open(options, path, columnFamilyDescriptors, columnFamilyHandles);
-            db.enableFileDeletions(true);
+            if (readOnly) {
+                // keep every file open, the writing instance may delete files once they are compacted
+                options.setMaxOpenFiles(-1).setKeepLogFileNum(2);
+                db = RocksDB.openReadOnly(options, path, columnFamilyDescriptors, columnFamilyHandles);
+            } else {
+                db = RocksDB.open(options, path, columnFamilyDescriptors, columnFamilyHandles);
+                db.enableFileDeletions(true);
+            }
+            for (ColumnFamilyProfile profile : profiles) {
+                configuredPrefixLengths.add(profile.getPrefixLength());
+            }
 
             fillmodelColumnHandles();
 
         } catch (Exception e) {
+            log.error("Error while initializing RocksDB", e);
             IOUtils.closeQuietly(db::close);
         }
     }
 
+    private ColumnFamilyOptions columnFamilyOptions(ColumnFamilyProfile profile, MergeOperator mergeOperator) {
+        BlockBasedTableConfig blockBasedTableConfig = new BlockBasedTableConfig()
+            .setCacheNumShardBits(2)
+            .setBlockSizeDeviation(10)
+            .setBlockRestartInterval(16)
+            .setBlockSize(profile.getBlockSize())
+            .setBlockCacheSize(Math.max(SizeUnit.MB, cacheSize * SizeUnit.KB * profile.getBlockCacheShare() / 100))
+            .setCacheIndexAndFilterBlocks(profile.isPinL0())
+            .setPinL0FilterAndIndexBlocksInCache(profile.isPinL0())
+            .setBlockCacheCompressedNumShardBits(10)
+            .setBlockCacheCompressedSize(32 * SizeUnit.KB);
+        if (profile.getBloomBits() > 0) {
+            BloomFilter bloomFilter = new BloomFilter(profile.getBloomBits());
+            columnFamilyResources.add(bloomFilter);
+            blockBasedTableConfig.setFilter(bloomFilter);
+        }
+
+        ColumnFamilyOptions columnFamilyOptions = new ColumnFamilyOptions()
+            .setMergeOperator(mergeOperator)
+            .setTableFormatConfig(blockBasedTableConfig)
+            .setCompressionType(profile.getCompression())
+            .setMaxWriteBufferNumber(profile.getMaxWriteBufferNumber())
+            .setWriteBufferSize(profile.getWriteBufferSize());
+        if (profile.getPrefixLength() > 0) {
+            columnFamilyOptions.useFixedLengthPrefixExtractor(profile.getPrefixLength());
+        }
+        columnFamilyResources.add(columnFamilyOptions);
+        return columnFamilyOptions;
+    }
+
     private void fillmodelColumnHandles() throws Exception {
         int i = 0;
         transactionHandle = columnFamilyHandles.get(++i);
@@ -460,6 +1313,8 @@ public class RocksDBPersistenceProvider implements PersistenceProvider {
         approveeHandle = columnFamilyHandles.get(++i);
         bundleHandle = columnFamilyHandles.get(++i);
         tagHandle = columnFamilyHandles.get(++i);
+        transactionFlagsHandle = columnFamilyHandles.get(++i);
+        transactionArchiveHandle = columnFamilyHandles.get(++i);
 
         for (; ++i < columnFamilyHandles.size(); ) {
             db.dropColumnFamily(columnFamilyHandles.get(i));
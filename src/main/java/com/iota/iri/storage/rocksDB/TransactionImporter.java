@@ -0,0 +1,133 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.TransactionValidator;
+import com.iota.iri.conf.Configuration;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Offline import of transaction dumps into a database that is not in use by a node.
+ *
+ * A dump is a file, or a directory of {@code .tx} files as written by the {@code EXPORT} option, in which every line
+ * of exactly {@link TransactionViewModel#TRINARY_SIZE} / 3 trytes is a transaction; other lines are ignored. The
+ * transactions are validated in parallel and ingested in chunks as sorted SST files.
+ */
+public class TransactionImporter {
+    private static final Logger log = LoggerFactory.getLogger(TransactionImporter.class);
+
+    private static final int TRYTES_SIZE = TransactionViewModel.TRINARY_SIZE / Converter.NUMBER_OF_TRITS_IN_A_TRYTE;
+    private static final int CHUNK_SIZE = 100000;
+
+    private final RocksDBPersistenceProvider provider;
+    private final int minWeightMagnitude;
+
+    private long imported = 0;
+    private long invalid = 0;
+
+    public TransactionImporter(RocksDBPersistenceProvider provider, int minWeightMagnitude) {
+        this.provider = provider;
+        this.minWeightMagnitude = minWeightMagnitude;
+    }
+
+    /**
+     * @return the number of imported transactions, not counting those that were stored already or repeated
+     */
+    public long importDump(Path dump) throws Exception {
+        long start = System.currentTimeMillis();
+        List<Path> files;
+        if (Files.isDirectory(dump)) {
+            try (Stream<Path> list = Files.list(dump)) {
+                files = list.filter(file -> file.toString().endsWith(".tx")).sorted().collect(Collectors.toList());
+            }
+        } else {
+            files = Collections.singletonList(dump);
+        }
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() != TRYTES_SIZE) {
+                        continue;
+                    }
+                    chunk.add(line);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        importChunk(chunk);
+                        chunk.clear();
+                        log.info("Imported {} transactions, {} invalid ({}/s)", imported, invalid,
+                            imported * 1000 / Math.max(1, System.currentTimeMillis() - start));
+                    }
+                }
+            }
+        }
+        importChunk(chunk);
+        log.info("Imported {} transactions in {} s, {} invalid", imported,
+            (System.currentTimeMillis() - start) / 1000, invalid);
+        return imported;
+    }
+
+    private void importChunk(List<String> trytes) throws Exception {
+        if (trytes.isEmpty()) {
+            return;
+        }
+        List<List<Pair<Indexable, Persistable>>> saveBatches = trytes.parallelStream()
+            .map(this::saveBatch)
+            .collect(Collectors.toList());
+        List<Pair<Indexable, Persistable>> models = new ArrayList<>(trytes.size() * 6);
+        for (List<Pair<Indexable, Persistable>> saveBatch : saveBatches) {
+            if (saveBatch == null) {
+                invalid++;
+            } else {
+                models.addAll(saveBatch);
+            }
+        }
+        imported += provider.ingest(models);
+    }
+
+    /**
+     * @return the entries storing the transaction, or {@code null} if it is invalid
+     */
+    private List<Pair<Indexable, Persistable>> saveBatch(String trytes) {
+        try {
+            int[] trits = Converter.allocatingTritsFromTrytes(trytes);
+            return TransactionValidator.validate(trits, minWeightMagnitude).getSaveBatch();
+        } catch (Exception e) {
+            log.debug("Skipping invalid transaction: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TransactionImporter <db path> <dump file or directory> [min weight magnitude]");
+            System.exit(1);
+        }
+        Configuration configuration = new Configuration();
+        int minWeightMagnitude = args.length > 2 ? Integer.parseInt(args[2])
+            : configuration.integer(Configuration.DefaultConfSettings.MWM);
+        RocksDBPersistenceProvider provider = new RocksDBPersistenceProvider(args[0],
+            configuration.string(Configuration.DefaultConfSettings.DB_LOG_PATH),
+            configuration.integer(Configuration.DefaultConfSettings.DB_CACHE_SIZE));
+        provider.init();
+        try {
+            new TransactionImporter(provider, minWeightMagnitude).importDump(Paths.get(args[1]));
+        } finally {
+            provider.shutdown();
+        }
+    }
+}
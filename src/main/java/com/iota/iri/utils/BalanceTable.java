@@ -0,0 +1,284 @@
+package com.iota.iri.utils;
+
+import com.iota.iri.model.Hash;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Balances by address in an open addressing table of fixed size slots, each holding the state of the slot, the 49
+ * address bytes and the balance as a primitive long. Nothing is allocated per address, and the slots can live outside
+ * the heap, where the garbage collector never has to trace them.
+ *
+ * The {@link Map} methods box their balances and create a {@link Hash} per entry they return; the primitive methods
+ * {@link #getBalance} and {@link #add} do not. Not thread safe.
+ */
+public class BalanceTable extends AbstractMap<Hash, Long> {
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte REMOVED = 2;
+
+    private static final int KEY_OFFSET = 1;
+    private static final int VALUE_OFFSET = KEY_OFFSET + Hash.SIZE_IN_BYTES;
+    private static final int SLOT_SIZE = VALUE_OFFSET + Long.BYTES;
+    private static final int MIN_CAPACITY = 16;
+    // the table grows once more than 3/4 of its slots are used or removed
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    private final boolean direct;
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+    private int removed;
+
+    /**
+     * @param direct whether the slots are allocated outside the heap
+     */
+    public BalanceTable(int expectedSize, boolean direct) {
+        this.direct = direct;
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while ((long) capacity * MAX_LOAD_PERCENT / 100 <= size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.slots = direct ? ByteBuffer.allocateDirect(capacity * SLOT_SIZE) : ByteBuffer.allocate(capacity * SLOT_SIZE);
+        this.size = 0;
+        this.removed = 0;
+    }
+
+    private int slotOf(byte[] key) {
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = hash << 8 | key[i] & 0xFF;
+        }
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (capacity - 1);
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        for (int i = 0; i < Hash.SIZE_IN_BYTES; i++) {
+            if (slots.get(offset + KEY_OFFSET + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the offset of the slot holding {@code key}, or -1 if it is not stored
+     */
+    private int find(byte[] key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & (capacity - 1)) {
+            int offset = slot * SLOT_SIZE;
+            byte state = slots.get(offset);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && keyEquals(offset, key)) {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * @return the offset of the slot holding {@code key}, which is added with a balance of 0 if it is not stored
+     */
+    private int findOrInsert(byte[] key) {
+        if ((long) (size + removed + 1) * 100 > (long) capacity * MAX_LOAD_PERCENT) {
+            resize(capacityFor(size + 1));
+        }
+        int firstRemoved = -1;
+        for (int slot = slotOf(key); ; slot = (slot + 1) & (capacity - 1)) {
+            int offset = slot * SLOT_SIZE;
+            byte state = slots.get(offset);
+            if (state == USED && keyEquals(offset, key)) {
+                return offset;
+            }
+            if (state == REMOVED && firstRemoved < 0) {
+                firstRemoved = offset;
+            }
+            if (state == EMPTY) {
+                if (firstRemoved >= 0) {
+                    offset = firstRemoved;
+                    removed--;
+                }
+                slots.put(offset, USED);
+                for (int i = 0; i < Hash.SIZE_IN_BYTES; i++) {
+                    slots.put(offset + KEY_OFFSET + i, key[i]);
+                }
+                slots.putLong(offset + VALUE_OFFSET, 0);
+                size++;
+                return offset;
+            }
+        }
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer previous = slots;
+        int previousCapacity = capacity;
+        allocate(newCapacity);
+        byte[] key = new byte[Hash.SIZE_IN_BYTES];
+        for (int offset = 0; offset < previousCapacity * SLOT_SIZE; offset += SLOT_SIZE) {
+            if (previous.get(offset) == USED) {
+                for (int i = 0; i < Hash.SIZE_IN_BYTES; i++) {
+                    key[i] = previous.get(offset + KEY_OFFSET + i);
+                }
+                slots.putLong(findOrInsert(key) + VALUE_OFFSET, previous.getLong(offset + VALUE_OFFSET));
+            }
+        }
+    }
+
+    private void removeAt(int offset) {
+        slots.put(offset, REMOVED);
+        size--;
+        removed++;
+    }
+
+    /**
+     * @return the balance of {@code address}, or {@code absent} if it is not stored
+     */
+    public long getBalance(Hash address, long absent) {
+        int offset = find(address.bytes());
+        return offset < 0 ? absent : slots.getLong(offset + VALUE_OFFSET);
+    }
+
+    /**
+     * Adds {@code delta} to the balance of {@code address}, which starts from 0 if it is not stored.
+     *
+     * @return the new balance
+     */
+    public long add(Hash address, long delta) {
+        int offset = findOrInsert(address.bytes());
+        long balance = slots.getLong(offset + VALUE_OFFSET) + delta;
+        slots.putLong(offset + VALUE_OFFSET, balance);
+        return balance;
+    }
+
+    /**
+     * @return a table holding the same balances, allocated the same way
+     */
+    public BalanceTable copy() {
+        BalanceTable copy = new BalanceTable(0, direct);
+        copy.allocate(capacity);
+        ByteBuffer source = slots.duplicate();
+        source.clear();
+        copy.slots.put(source);
+        copy.slots.clear();
+        copy.size = size;
+        copy.removed = removed;
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Hash && find(((Hash) key).bytes()) >= 0;
+    }
+
+    @Override
+    public Long get(Object key) {
+        if (!(key instanceof Hash)) {
+            return null;
+        }
+        int offset = find(((Hash) key).bytes());
+        return offset < 0 ? null : slots.getLong(offset + VALUE_OFFSET);
+    }
+
+    @Override
+    public Long put(Hash key, Long value) {
+        int previousSize = size;
+        int offset = findOrInsert(key.bytes());
+        long previous = slots.getLong(offset + VALUE_OFFSET);
+        slots.putLong(offset + VALUE_OFFSET, value);
+        return size == previousSize ? previous : null;
+    }
+
+    @Override
+    public Long remove(Object key) {
+        if (!(key instanceof Hash)) {
+            return null;
+        }
+        int offset = find(((Hash) key).bytes());
+        if (offset < 0) {
+            return null;
+        }
+        long previous = slots.getLong(offset + VALUE_OFFSET);
+        removeAt(offset);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    @Override
+    public Set<Entry<Hash, Long>> entrySet() {
+        return new AbstractSet<Entry<Hash, Long>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<Hash, Long>> iterator() {
+                return new Iterator<Entry<Hash, Long>>() {
+                    private final ByteBuffer iterated = slots;
+                    private final int end = capacity * SLOT_SIZE;
+                    private int next = advance(0);
+                    private int current = -1;
+
+                    private int advance(int offset) {
+                        while (offset < end && iterated.get(offset) != USED) {
+                            offset += SLOT_SIZE;
+                        }
+                        return offset;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    @Override
+                    public Entry<Hash, Long> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        current = next;
+                        next = advance(next + SLOT_SIZE);
+                        byte[] key = new byte[Hash.SIZE_IN_BYTES];
+                        for (int i = 0; i < Hash.SIZE_IN_BYTES; i++) {
+                            key[i] = iterated.get(current + KEY_OFFSET + i);
+                        }
+                        return new SimpleImmutableEntry<>(new Hash(key), iterated.getLong(current + VALUE_OFFSET));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (current < 0) {
+                            throw new IllegalStateException();
+                        }
+                        if (iterated != slots) {
+                            throw new ConcurrentModificationException();
+                        }
+                        removeAt(current);
+                        current = -1;
+                    }
+                };
+            }
+        };
+    }
+}
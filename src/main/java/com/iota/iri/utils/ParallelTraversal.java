@@ -0,0 +1,119 @@
+package com.iota.iri.utils;
+
+import com.iota.iri.model.Hash;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Walks the tangle breadth first, one level at a time, visiting the chunks of a large level in parallel so the batched
+ * reads and bundle validation of a big past cone are not bound to one core.
+ *
+ * The hashes of a level are checked against the visited set by the calling thread, in the order they were found,
+ * before any chunk is visited, and the next level is assembled in chunk order. A walk therefore visits the same hashes
+ * in the same levels whatever its parallelism; only the order in which the chunks of a level run differs.
+ */
+public class ParallelTraversal {
+    // levels are split into chunks of at least this many hashes, smaller levels are visited on the calling thread
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    public interface Visitor {
+        /**
+         * Visits {@code hashes}, none of which were visited before, and adds the hashes to visit next to {@code next}.
+         * Chunks of the same level are visited concurrently, so anything shared between them must be thread safe.
+         *
+         * @return false to end the walk
+         */
+        boolean visit(List<Hash> hashes, List<Hash> next) throws Exception;
+    }
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism the number of threads visiting a level, 1 visits every level on the calling thread and 0 or
+     *                    less uses one thread per processor
+     */
+    public ParallelTraversal(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Walks from {@code start} through the hashes added by {@code visitor}, skipping those in {@code visited} and
+     * adding every other hash to it before it is visited.
+     *
+     * @return false if the visitor ended the walk
+     */
+    public boolean walk(Collection<Hash> start, Set<Hash> visited, Visitor visitor) throws Exception {
+        List<Hash> nonAnalyzedTransactions = new ArrayList<>(start);
+        while (!nonAnalyzedTransactions.isEmpty()) {
+            final List<Hash> level = new ArrayList<>(nonAnalyzedTransactions.size());
+            for (Hash hashPointer : nonAnalyzedTransactions) {
+                if (visited.add(hashPointer)) {
+                    level.add(hashPointer);
+                }
+            }
+            nonAnalyzedTransactions = new ArrayList<>(level.size() * 2);
+            if (level.isEmpty()) {
+                break;
+            }
+            int chunks = Math.min(parallelism, (level.size() + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE);
+            if (pool == null || chunks <= 1) {
+                if (!visitor.visit(level, nonAnalyzedTransactions)) {
+                    return false;
+                }
+                continue;
+            }
+            List<Callable<List<Hash>>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                final List<Hash> chunk = level.subList(level.size() * i / chunks, level.size() * (i + 1) / chunks);
+                tasks.add(() -> {
+                    List<Hash> next = new ArrayList<>(chunk.size() * 2);
+                    return visitor.visit(chunk, next) ? next : null;
+                });
+            }
+            boolean proceed = true;
+            for (Future<List<Hash>> result : pool.invokeAll(tasks)) {
+                List<Hash> next = get(result);
+                if (next == null) {
+                    proceed = false;
+                } else {
+                    nonAnalyzedTransactions.addAll(next);
+                }
+            }
+            if (!proceed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> T get(Future<T> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.iota.iri;
+
+import com.iota.iri.model.Hash;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class LocalSnapshotTest {
+    private final TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        folder.create();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        folder.delete();
+    }
+
+    private LocalSnapshot randomSnapshot() {
+        Map<Hash, Long> balances = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            balances.put(getRandomTransactionHash(), (long) i + 1);
+        }
+        return new LocalSnapshot(1234, getRandomTransactionHash(), balances);
+    }
+
+    @Test
+    public void snapshotShouldSurviveRoundTrip() throws Exception {
+        LocalSnapshot snapshot = randomSnapshot();
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+        snapshot.write(file);
+
+        LocalSnapshot read = LocalSnapshot.read(file);
+        Assert.assertEquals(snapshot.index, read.index);
+        Assert.assertEquals(snapshot.milestone, read.milestone);
+        Assert.assertEquals(snapshot.balances, read.balances);
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedSnapshotShouldBeRejected() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+        randomSnapshot().write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        LocalSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedBalanceCountShouldBeRejected() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("snapshot");
+        randomSnapshot().write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        // the number of balances follows the magic, version, milestone index and milestone hash
+        int offset = Integer.BYTES + 1 + Integer.BYTES + Hash.SIZE_IN_BYTES;
+        bytes[offset] = 0x7f;
+        Files.write(file, bytes);
+
+        LocalSnapshot.read(file);
+    }
+}
@@ -0,0 +1,97 @@
+package com.iota.iri;
+
+import com.iota.iri.hash.Curl;
+import com.iota.iri.hash.ISS;
+import com.iota.iri.hash.Sponge;
+import com.iota.iri.hash.SpongeFactory;
+import com.iota.iri.model.Hash;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MilestoneVerifierTest {
+    private static final SpongeFactory.Mode MODE = SpongeFactory.Mode.CURLP27;
+    private static final int DEPTH = 3;
+
+    private final Random random = new Random(1);
+    private int[][] keys;
+    private int[][][] tree;
+
+    private int[] randomTrits(int length) {
+        int[] trits = new int[length];
+        for (int i = 0; i < length; i++) {
+            trits[i] = random.nextInt(3) - 1;
+        }
+        return trits;
+    }
+
+    private static int[] parent(int[] left, int[] right) {
+        Sponge curl = SpongeFactory.create(MODE);
+        curl.absorb(left, 0, left.length);
+        curl.absorb(right, 0, right.length);
+        int[] parent = new int[Curl.HASH_LENGTH];
+        curl.squeeze(parent, 0, parent.length);
+        return parent;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        int[] seed = randomTrits(Curl.HASH_LENGTH);
+        keys = new int[1 << DEPTH][];
+        tree = new int[DEPTH + 1][][];
+        tree[0] = new int[1 << DEPTH][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ISS.key(MODE, ISS.subseed(MODE, seed, i), 1);
+            tree[0][i] = ISS.address(MODE, ISS.digests(MODE, keys[i]));
+        }
+        for (int level = 1; level <= DEPTH; level++) {
+            tree[level] = new int[tree[level - 1].length / 2][];
+            for (int i = 0; i < tree[level].length; i++) {
+                tree[level][i] = parent(tree[level - 1][2 * i], tree[level - 1][2 * i + 1]);
+            }
+        }
+    }
+
+    private int[] siblings(int index) {
+        int[] siblings = new int[DEPTH * Curl.HASH_LENGTH];
+        for (int level = 0; level < DEPTH; level++) {
+            System.arraycopy(tree[level][(index >> level) ^ 1], 0, siblings, level * Curl.HASH_LENGTH, Curl.HASH_LENGTH);
+        }
+        return siblings;
+    }
+
+    private int[] sign(int[] signedHash, int index) {
+        return ISS.signatureFragment(MODE, Arrays.copyOf(ISS.normalizedBundle(signedHash), ISS.NUMBER_OF_FRAGMENT_CHUNKS),
+                keys[index]);
+    }
+
+    @Test
+    public void signedMilestonesShouldBeVerified() {
+        MilestoneVerifier verifier = new MilestoneVerifier(MODE, new Hash(tree[DEPTH][0]), DEPTH);
+        for (int index = 0; index < keys.length; index++) {
+            int[] signedHash = randomTrits(Curl.HASH_LENGTH);
+            Assert.assertTrue(verifier.verify(signedHash, sign(signedHash, index), siblings(index), 0, index));
+        }
+        Assert.assertEquals(keys.length, verifier.getVerifications());
+        Assert.assertTrue("verified paths should be reused", verifier.getCacheHits() > 0);
+    }
+
+    @Test
+    public void forgedMilestonesShouldBeRejected() {
+        MilestoneVerifier verifier = new MilestoneVerifier(MODE, new Hash(tree[DEPTH][0]), DEPTH);
+        int[] signedHash = randomTrits(Curl.HASH_LENGTH);
+        Assert.assertTrue(verifier.verify(signedHash, sign(signedHash, 0), siblings(0), 0, 0));
+
+        int[] otherHash = randomTrits(Curl.HASH_LENGTH);
+        Assert.assertFalse("signature of another hash", verifier.verify(otherHash, sign(signedHash, 1), siblings(1), 0, 1));
+        Assert.assertFalse("wrong index", verifier.verify(signedHash, sign(signedHash, 1), siblings(1), 0, 3));
+        Assert.assertFalse("out of the tree", verifier.verify(signedHash, sign(signedHash, 1), siblings(1), 0, 1 << DEPTH));
+        int[] forgedSiblings = siblings(1);
+        forgedSiblings[0] = -forgedSiblings[0] == forgedSiblings[0] ? 1 : -forgedSiblings[0];
+        Assert.assertFalse("forged sibling", verifier.verify(signedHash, sign(signedHash, 1), forgedSiblings, 0, 1));
+        Assert.assertTrue(verifier.verify(signedHash, sign(signedHash, 1), siblings(1), 0, 1));
+    }
+}
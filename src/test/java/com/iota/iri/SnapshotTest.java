@@ -26,12 +26,12 @@ public class SnapshotTest {
 
     @Test
     public void isConsistent() throws Exception {
-        Assert.assertTrue("Initial confirmed should be consistent", Snapshot.isConsistent(initSnapshot.state));
+        Assert.assertTrue("Initial confirmed should be consistent", Snapshot.isConsistent(initSnapshot.getState()));
     }
 
     @Test
     public void patch() throws Exception {
-        Map.Entry<Hash, Long> firstOne = initSnapshot.state.entrySet().iterator().next();
+        Map.Entry<Hash, Long> firstOne = initSnapshot.getState().entrySet().iterator().next();
         Hash someHash = new Hash("PSRQPWWIECDGDDZXHGJNMEVJNSVOSMECPPVRPEVRZFVIZYNNXZNTOTJOZNGCZNQVSPXBXTYUJUOXYASLS");
         Map<Hash, Long> diff = new HashMap<>();
         diff.put(firstOne.getKey(), -firstOne.getValue());
@@ -50,6 +50,25 @@ public class SnapshotTest {
         assertFalse("should be inconsistent", Snapshot.isConsistent(latestSnapshot.patchedDiff(badMap)));
     }
 
+    @Test
+    public void pinnedReadsShouldNotSeeNewMilestones() throws Exception {
+        Snapshot latestSnapshot = initSnapshot.clone();
+        Map.Entry<Hash, Long> firstOne = latestSnapshot.getState().entrySet().iterator().next();
+        Hash someHash = new Hash("PSRQPWWIECDGDDZXHGJNMEVJNSVOSMECPPVRPEVRZFVIZYNNXZNTOTJOZNGCZNQVSPXBXTYUJUOXYASLS");
+        Map<Hash, Long> diff = new HashMap<>();
+        diff.put(firstOne.getKey(), -firstOne.getValue());
+        diff.put(someHash, firstOne.getValue());
+
+        try (Snapshot.Pin pin = latestSnapshot.pin()) {
+            latestSnapshot.apply(diff, latestSnapshot.index() + 1);
+            Assert.assertEquals(initSnapshot.index(), latestSnapshot.index());
+            Assert.assertEquals(firstOne.getValue(), latestSnapshot.getBalance(firstOne.getKey()));
+        }
+        Assert.assertEquals(initSnapshot.index() + 1, latestSnapshot.index());
+        Assert.assertEquals(Long.valueOf(0), latestSnapshot.getBalance(firstOne.getKey()));
+        Assert.assertEquals(firstOne.getValue(), latestSnapshot.getBalance(someHash));
+    }
+
     private Map<Hash, Long> getModifiedMap() {
         Hash someHash = new Hash("PSRQPWWIECDGDDZXHGJNMEVJNSVOSMECPPVRPEVRZFVIZYNNXZNTOTJOZNGCZNQVSPXBXTYUJUOXYASLS");
         Map<Hash, Long> newMap;
@@ -0,0 +1,72 @@
+package com.iota.iri;
+
+import com.iota.iri.model.Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class UnconfirmedDiffCacheTest {
+
+    private static UnconfirmedDiffCache.Entry randomEntry(int visited) {
+        Set<Hash> hashes = new HashSet<>();
+        for (int i = 0; i < visited; i++) {
+            hashes.add(getRandomTransactionHash());
+        }
+        Map<Hash, List<UnconfirmedDiffCache.Change>> changes = new HashMap<>();
+        changes.put(getRandomTransactionHash(), Collections.singletonList(
+                new UnconfirmedDiffCache.Change(getRandomTransactionHash(), getRandomTransactionHash(), 1)));
+        return new UnconfirmedDiffCache.Entry(hashes, changes);
+    }
+
+    @Test
+    public void entryShouldOnlyBeFoundAtItsSnapshotIndex() {
+        UnconfirmedDiffCache cache = new UnconfirmedDiffCache(1000);
+        Hash tip = getRandomTransactionHash();
+        UnconfirmedDiffCache.Entry entry = randomEntry(10);
+        cache.put(tip, 5, entry);
+
+        Assert.assertSame(entry, cache.get(tip, 5));
+        Assert.assertNull(cache.get(tip, 6));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void newerSnapshotIndexShouldDropEntries() {
+        UnconfirmedDiffCache cache = new UnconfirmedDiffCache(1000);
+        Hash tip = getRandomTransactionHash();
+        cache.put(tip, 5, randomEntry(10));
+        cache.put(getRandomTransactionHash(), 6, randomEntry(10));
+        Assert.assertEquals(1, cache.size());
+
+        cache.put(tip, 5, randomEntry(10));
+        Assert.assertNull(cache.get(tip, 5));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesShouldBeEvicted() {
+        UnconfirmedDiffCache cache = new UnconfirmedDiffCache(25);
+        Hash first = getRandomTransactionHash();
+        Hash second = getRandomTransactionHash();
+        cache.put(first, 1, randomEntry(9));
+        cache.put(second, 1, randomEntry(9));
+        cache.get(first, 1);
+        cache.put(getRandomTransactionHash(), 1, randomEntry(9));
+
+        Assert.assertNotNull(cache.get(first, 1));
+        Assert.assertNull(cache.get(second, 1));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void disabledCacheShouldHoldNothing() {
+        UnconfirmedDiffCache cache = new UnconfirmedDiffCache(0);
+        Hash tip = getRandomTransactionHash();
+        cache.put(tip, 1, randomEntry(1));
+        Assert.assertNull(cache.get(tip, 1));
+    }
+}
@@ -42,7 +42,7 @@ public class MilestoneViewModelTest {
         Hash milestoneHash = new Hash("ABCDEFGHIJKLMNOPQRSTUVWXYZ9ABCDEFGHIJKLMNOPQRSTUVWXYZ9ABCDEFGHIJKLMNOPQRSTUV99999");
         MilestoneViewModel milestoneViewModel = new MilestoneViewModel(++index, milestoneHash);
         assertTrue(milestoneViewModel.store(tangle));
-        MilestoneViewModel.clear();
+        tangle.getMilestoneIndex().clear();
         MilestoneViewModel.load(tangle, index);
         assertEquals(MilestoneViewModel.get(tangle, index).getHash(), milestoneHash);
     }
@@ -70,7 +70,7 @@ public class MilestoneViewModelTest {
         Hash milestoneHash = new Hash("CBCDEFGHIJKLMNOPQRSTUVWXYZ9ABCDEFGHIJKLMNOPQRSTUVWXYZ9ABCDEFGHIJKLMNOPQRSTUV99999");
         MilestoneViewModel milestoneViewModel = new MilestoneViewModel(++index, milestoneHash);
         assertTrue(milestoneViewModel.store(tangle));
-        MilestoneViewModel.clear();
+        tangle.getMilestoneIndex().clear();
         assertEquals(MilestoneViewModel.get(tangle, index).getHash(), milestoneHash);
 
     }
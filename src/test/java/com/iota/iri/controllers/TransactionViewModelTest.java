@@ -319,6 +319,20 @@ public class TransactionViewModelTest {
         }
     }
 
+    @Test
+    public void fromHashesShouldLoadStoredAndMissingTransactions() throws Exception {
+        int[] trits = getRandomTransactionTrits();
+        TransactionViewModel stored = new TransactionViewModel(trits, Hash.calculate(SpongeFactory.Mode.CURLP81, trits));
+        stored.store(tangle);
+        Hash missing = getRandomTransactionHash();
+
+        Map<Hash, TransactionViewModel> loaded = TransactionViewModel.fromHashes(tangle, Arrays.asList(missing, stored.getHash()));
+        assertEquals(Arrays.asList(missing, stored.getHash()), new ArrayList<>(loaded.keySet()));
+        assertEquals(TransactionViewModel.PREFILLED_SLOT, loaded.get(missing).getType());
+        assertArrayEquals(stored.getBytes(), loaded.get(stored.getHash()).getBytes());
+        assertEquals(stored.getTrunkTransactionHash(), loaded.get(stored.getHash()).getTrunkTransactionHash());
+    }
+
     @Test
     public void findShouldBeSuccessful() throws Exception {
         int[] trits = getRandomTransactionTrits();
@@ -328,6 +342,17 @@ public class TransactionViewModelTest {
         Assert.assertArrayEquals(TransactionViewModel.find(tangle, Arrays.copyOf(hash.bytes(), Integer.parseInt(Configuration.REQ_HASH_SIZE))).getBytes(), transactionViewModel.getBytes());
     }
 
+    @Test
+    public void fromShortHashShouldResolveFullHash() throws Exception {
+        int[] trits = getRandomTransactionTrits();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(trits, Hash.calculate(SpongeFactory.Mode.CURLP81, trits));
+        transactionViewModel.store(tangle);
+        Hash hash = transactionViewModel.getHash();
+        TransactionViewModel found = TransactionViewModel.fromShortHash(tangle, Arrays.copyOf(hash.bytes(), Integer.parseInt(Configuration.REQ_HASH_SIZE)));
+        assertEquals(hash, found.getHash());
+        Assert.assertArrayEquals(transactionViewModel.getBytes(), found.getBytes());
+    }
+
     @Test
     public void findShouldReturnNull() throws Exception {
         int[] trits = getRandomTransactionTrits();
@@ -0,0 +1,28 @@
+package com.iota.iri.model;
+
+import com.iota.iri.controllers.TransactionViewModelTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashesTest {
+    @Test
+    public void bytesShouldRoundTrip() throws Exception {
+        Approvee approvee = new Approvee(TransactionViewModelTest.getRandomTransactionHash());
+        approvee.set.add(TransactionViewModelTest.getRandomTransactionHash());
+        approvee.set.add(TransactionViewModelTest.getRandomTransactionHash());
+
+        byte[] bytes = approvee.bytes();
+        Assert.assertEquals(Integer.BYTES + 3 * Hash.SIZE_IN_BYTES, bytes.length);
+
+        Approvee read = new Approvee();
+        read.read(bytes);
+        Assert.assertEquals(approvee.set, read.set);
+    }
+
+    @Test
+    public void emptySetShouldRoundTrip() throws Exception {
+        Approvee read = new Approvee(TransactionViewModelTest.getRandomTransactionHash());
+        read.read(new Approvee().bytes());
+        Assert.assertTrue(read.set.isEmpty());
+    }
+}
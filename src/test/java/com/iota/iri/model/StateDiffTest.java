@@ -0,0 +1,74 @@
+package com.iota.iri.model;
+
+import com.iota.iri.utils.Serializer;
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class StateDiffTest {
+
+    private static Map<Hash, Long> randomDiff() {
+        Map<Hash, Long> diff = new HashMap<>();
+        diff.put(getRandomTransactionHash(), -2779530283277761L);
+        diff.put(getRandomTransactionHash(), 2779530283277761L - 1);
+        diff.put(getRandomTransactionHash(), 1L);
+        diff.put(getRandomTransactionHash(), 0L);
+        diff.put(getRandomTransactionHash(), Long.MIN_VALUE);
+        return diff;
+    }
+
+    @Test
+    public void diffShouldSurviveRoundTrip() {
+        StateDiff stateDiff = new StateDiff();
+        stateDiff.state = randomDiff();
+
+        StateDiff read = new StateDiff();
+        read.read(stateDiff.bytes());
+        Assert.assertFalse(read.isEmpty());
+        Assert.assertEquals(stateDiff.state, read.getState());
+    }
+
+    @Test
+    public void streamedDiffShouldMatchDecodedDiff() {
+        StateDiff stateDiff = new StateDiff();
+        stateDiff.state = randomDiff();
+
+        StateDiff read = new StateDiff();
+        read.read(stateDiff.bytes());
+        Map<Hash, Long> streamed = new HashMap<>();
+        read.forEach(streamed::put);
+        Assert.assertEquals(stateDiff.state, streamed);
+    }
+
+    @Test
+    public void legacyDiffShouldBeRead() {
+        Map<Hash, Long> diff = randomDiff();
+        byte[] legacy = new byte[0];
+        for (Map.Entry<Hash, Long> entry : diff.entrySet()) {
+            legacy = ArrayUtils.addAll(legacy, ArrayUtils.addAll(entry.getKey().bytes(), Serializer.serialize(entry.getValue())));
+        }
+
+        StateDiff read = new StateDiff();
+        read.read(legacy);
+        Assert.assertFalse(read.isEmpty());
+        Assert.assertEquals(diff, read.getState());
+    }
+
+    @Test
+    public void emptyDiffShouldBeEmpty() {
+        StateDiff stateDiff = new StateDiff();
+        stateDiff.state = new HashMap<>();
+
+        StateDiff read = new StateDiff();
+        read.read(stateDiff.bytes());
+        Assert.assertTrue(read.isEmpty());
+        read.read(null);
+        Assert.assertTrue(read.isEmpty());
+        Assert.assertTrue(read.getState().isEmpty());
+    }
+}
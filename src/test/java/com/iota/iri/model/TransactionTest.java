@@ -0,0 +1,34 @@
+package com.iota.iri.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionTest {
+    @Test
+    public void flagsShouldRoundTrip() throws Exception {
+        Transaction transaction = new Transaction();
+        transaction.validity = -1;
+        transaction.arrivalTime = 1522306500123L;
+        transaction.height = 42;
+        transaction.solid = true;
+        transaction.snapshot = 434525;
+        transaction.sender = "udp://127.0.0.1:14600";
+
+        Transaction read = new Transaction();
+        read.readFlags(transaction.flags());
+        Assert.assertEquals(transaction.validity, read.validity);
+        Assert.assertEquals(transaction.arrivalTime, read.arrivalTime);
+        Assert.assertEquals(transaction.height, read.height);
+        Assert.assertEquals(transaction.solid, read.solid);
+        Assert.assertEquals(transaction.snapshot, read.snapshot);
+        Assert.assertEquals(transaction.sender, read.sender);
+    }
+
+    @Test
+    public void missingFlagsShouldKeepMetadataValues() throws Exception {
+        Transaction transaction = new Transaction();
+        transaction.snapshot = 7;
+        transaction.readFlags(null);
+        Assert.assertEquals(7, transaction.snapshot);
+    }
+}
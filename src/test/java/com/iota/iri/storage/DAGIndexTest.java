@@ -0,0 +1,96 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static org.junit.Assert.*;
+
+public class DAGIndexTest {
+
+    @Test
+    public void addTracksParentsAndApprovers() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(1000);
+        Hash parent = getRandomTransactionHash(), child = getRandomTransactionHash();
+
+        dagIndex.add(child, parent, Hash.NULL_HASH, 0, false, Collections.emptySet());
+        assertArrayEquals(new Hash[]{parent, Hash.NULL_HASH}, dagIndex.getParents(child));
+        assertNull("approvers of a placeholder are not known", dagIndex.getApprovers(parent));
+        assertEquals(DAGIndex.UNKNOWN, dagIndex.getSnapshotIndex(parent));
+
+        dagIndex.add(parent, Hash.NULL_HASH, Hash.NULL_HASH, 0, true, Collections.emptySet());
+        assertEquals(Collections.singleton(child), dagIndex.getApprovers(parent));
+        assertTrue(dagIndex.isSolid(parent));
+        assertFalse(dagIndex.isSolid(child));
+    }
+
+    @Test
+    public void approversWithoutStoredSetAreIncomplete() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(1000);
+        Hash hash = getRandomTransactionHash();
+        dagIndex.add(hash, Hash.NULL_HASH, Hash.NULL_HASH, 0, false, null);
+        assertNull(dagIndex.getApprovers(hash));
+        assertNotNull(dagIndex.getParents(hash));
+    }
+
+    @Test
+    public void updateAndRemove() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(1000);
+        Hash parent = getRandomTransactionHash(), child = getRandomTransactionHash();
+        dagIndex.add(parent, Hash.NULL_HASH, Hash.NULL_HASH, 0, false, Collections.emptySet());
+        dagIndex.add(child, parent, parent, 0, false, Collections.emptySet());
+
+        dagIndex.update(parent, 7, true);
+        assertEquals(7, dagIndex.getSnapshotIndex(parent));
+        assertTrue(dagIndex.isSolid(parent));
+
+        dagIndex.remove(child);
+        assertNull(dagIndex.getParents(child));
+        assertNull("a removed approver leaves the approver set incomplete", dagIndex.getApprovers(parent));
+    }
+
+    @Test
+    public void pruneDropsOldestConfirmed() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(100);
+        Hash trunk = Hash.NULL_HASH;
+        for (int i = 1; i <= 150; i++) {
+            Hash hash = getRandomTransactionHash();
+            dagIndex.add(hash, trunk, Hash.NULL_HASH, i, true, Collections.emptySet());
+            trunk = hash;
+        }
+        assertTrue(dagIndex.size() <= 100);
+        assertNotNull("the newest transaction is kept", dagIndex.getParents(trunk));
+    }
+
+    @Test
+    public void pruneWithoutConfirmedKeepsNewest() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(100);
+        Hash[] hashes = new Hash[150];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = getRandomTransactionHash();
+            dagIndex.add(hashes[i], Hash.NULL_HASH, Hash.NULL_HASH, 0, false, Collections.emptySet());
+        }
+        assertTrue(dagIndex.size() <= 100);
+        assertTrue("only the oldest transactions are dropped", dagIndex.size() > 50);
+        assertNotNull(dagIndex.getParents(hashes[hashes.length - 1]));
+        assertNull(dagIndex.getParents(hashes[1]));
+    }
+
+    @Test
+    public void idsSurviveGrowingAndRemoving() throws Exception {
+        DAGIndex dagIndex = new DAGIndex(100000);
+        Hash[] hashes = new Hash[5000];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = getRandomTransactionHash();
+            dagIndex.add(hashes[i], i > 0 ? hashes[i - 1] : Hash.NULL_HASH, Hash.NULL_HASH, i, false, null);
+            if (i % 3 == 0) {
+                dagIndex.remove(hashes[i]);
+            }
+        }
+        for (int i = 1; i < hashes.length; i++) {
+            assertEquals(i % 3 == 0 ? DAGIndex.UNKNOWN : i, dagIndex.getSnapshotIndex(hashes[i]));
+        }
+    }
+}
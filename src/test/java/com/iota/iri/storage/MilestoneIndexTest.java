@@ -0,0 +1,70 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.utils.Pair;
+import org.junit.Test;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static org.junit.Assert.*;
+
+public class MilestoneIndexTest {
+
+    @Test
+    public void closestMilestonesAreFound() throws Exception {
+        MilestoneIndex milestoneIndex = new MilestoneIndex();
+        Hash[] hashes = new Hash[10];
+        for (int i = hashes.length - 1; i >= 0; i--) {
+            hashes[i] = getRandomTransactionHash();
+            milestoneIndex.put(i * 10, hashes[i]);
+        }
+        assertEquals(hashes.length, milestoneIndex.size());
+        assertEquals(hashes[3], milestoneIndex.get(30));
+        assertNull(milestoneIndex.get(31));
+
+        Pair<Integer, Hash> next = milestoneIndex.higher(31);
+        assertEquals(40, (int) next.low);
+        assertEquals(hashes[4], next.hi);
+        assertEquals(50, (int) milestoneIndex.higher(40).low);
+        assertEquals(30, (int) milestoneIndex.lower(31).low);
+        assertEquals(20, (int) milestoneIndex.lower(30).low);
+        assertNull(milestoneIndex.higher(90));
+        assertNull(milestoneIndex.lower(0));
+        assertEquals(0, (int) milestoneIndex.first().low);
+        assertEquals(90, (int) milestoneIndex.latest().low);
+        assertEquals(0, (int) milestoneIndex.higher(-5).low);
+        assertEquals(90, (int) milestoneIndex.lower(1000).low);
+    }
+
+    @Test
+    public void milestonesCanBeReplacedAndRemoved() throws Exception {
+        MilestoneIndex milestoneIndex = new MilestoneIndex();
+        for (int i = 0; i < 5000; i++) {
+            milestoneIndex.put(i, getRandomTransactionHash());
+        }
+        Hash hash = getRandomTransactionHash();
+        milestoneIndex.put(1234, hash);
+        assertEquals(5000, milestoneIndex.size());
+        assertEquals(hash, milestoneIndex.get(1234));
+
+        milestoneIndex.remove(1234);
+        assertNull(milestoneIndex.get(1234));
+        assertEquals(1235, (int) milestoneIndex.higher(1233).low);
+        assertEquals(1233, (int) milestoneIndex.lower(1235).low);
+        milestoneIndex.remove(4999);
+        assertEquals(4998, (int) milestoneIndex.latest().low);
+
+        milestoneIndex.clear();
+        assertEquals(0, milestoneIndex.size());
+        assertNull(milestoneIndex.first());
+        assertFalse(milestoneIndex.isLoaded());
+    }
+
+    @Test
+    public void loadReadsStoredMilestones() throws Exception {
+        Tangle tangle = new Tangle();
+        MilestoneIndex milestoneIndex = tangle.getMilestoneIndex();
+        milestoneIndex.load(tangle);
+        assertTrue(milestoneIndex.isLoaded());
+        assertEquals(0, milestoneIndex.size());
+    }
+}
@@ -3,12 +3,15 @@ package com.iota.iri.storage;
 import com.iota.iri.hash.Curl;
 import com.iota.iri.hash.Sponge;
 import com.iota.iri.hash.SpongeFactory;
+import com.iota.iri.model.Approvee;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.Transaction;
 import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
 import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.Pair;
 import com.iota.iri.controllers.TransactionViewModel;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -17,6 +20,7 @@ import java.util.Arrays;
 import java.util.Random;
 import java.util.Set;
 
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
 import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
 
 /**
@@ -89,4 +93,33 @@ public class TangleTest {
         */
     }
 
-}
\ No newline at end of file
+    @Test
+    public void hashesShouldBeStoredPerMember() throws Exception {
+        Hash hash = getRandomTransactionHash(), first = getRandomTransactionHash(), second = getRandomTransactionHash();
+        tangle.saveBatch(Arrays.asList(new Pair<>(hash, new Approvee(first)), new Pair<>(hash, new Approvee(second))));
+
+        Approvee approvee = (Approvee) tangle.load(Approvee.class, hash);
+        Assert.assertEquals(2, approvee.set.size());
+        Assert.assertTrue(approvee.set.contains(first) && approvee.set.contains(second));
+        Assert.assertTrue(tangle.exists(Approvee.class, hash));
+
+        tangle.delete(Approvee.class, hash);
+        Assert.assertTrue(((Approvee) tangle.load(Approvee.class, hash)).set.isEmpty());
+        Assert.assertFalse(tangle.exists(Approvee.class, hash));
+    }
+
+    @Test
+    public void hashesShouldBeIteratedPerIndex() throws Exception {
+        Hash hash = getRandomTransactionHash(), other = getRandomTransactionHash();
+        tangle.saveBatch(Arrays.asList(new Pair<>(hash, new Approvee(getRandomTransactionHash())),
+                new Pair<>(hash, new Approvee(getRandomTransactionHash())),
+                new Pair<>(other, new Approvee(getRandomTransactionHash()))));
+
+        Pair<Indexable, Persistable> first = tangle.getFirst(Approvee.class, Hash.class);
+        Pair<Indexable, Persistable> next = tangle.next(Approvee.class, first.low);
+        Assert.assertNotEquals(first.low, next.low);
+        Assert.assertEquals(3, ((Approvee) first.hi).set.size() + ((Approvee) next.hi).set.size());
+        Assert.assertNull(tangle.next(Approvee.class, next.low).low);
+    }
+
+}
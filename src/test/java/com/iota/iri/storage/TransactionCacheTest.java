@@ -0,0 +1,110 @@
+package com.iota.iri.storage;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.Transaction;
+import org.junit.Test;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static org.junit.Assert.*;
+
+public class TransactionCacheTest {
+
+    private static Transaction getTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.bytes = new byte[TransactionViewModel.SIZE];
+        transaction.type = TransactionViewModel.FILLED_SLOT;
+        return transaction;
+    }
+
+    @Test
+    public void getReturnsCopy() throws Exception {
+        TransactionCache cache = new TransactionCache(1024 * 1024);
+        Hash hash = getRandomTransactionHash();
+        Transaction transaction = getTransaction();
+        transaction.height = 5;
+        cache.put(hash, transaction, cache.stamp(hash));
+
+        Transaction cached = cache.get(hash);
+        assertNotNull(cached);
+        assertNotSame(transaction, cached);
+        assertEquals(5, cached.height);
+
+        cached.height = 6;
+        assertEquals(5, cache.get(hash).height);
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void writeMarksParsed() throws Exception {
+        TransactionCache cache = new TransactionCache(1024 * 1024);
+        Hash loaded = getRandomTransactionHash(), written = getRandomTransactionHash();
+        cache.put(loaded, getTransaction(), cache.stamp(loaded));
+        cache.write(written, getTransaction());
+        assertFalse(cache.get(loaded).parsed);
+        assertTrue(cache.get(written).parsed);
+    }
+
+    @Test
+    public void staleReadDoesNotReplaceWrite() throws Exception {
+        TransactionCache cache = new TransactionCache(1024 * 1024);
+        Hash hash = getRandomTransactionHash();
+        long stamp = cache.stamp(hash);
+        Transaction written = getTransaction();
+        written.solid = true;
+        cache.write(hash, written);
+        cache.put(hash, getTransaction(), stamp);
+        assertTrue(cache.get(hash).solid);
+
+        cache.invalidate(hash);
+        cache.put(hash, getTransaction(), stamp);
+        assertNull("a read begun before an invalidation should not be cached", cache.get(hash));
+    }
+
+    @Test
+    public void bytesAreNotShared() throws Exception {
+        TransactionCache cache = new TransactionCache(1024 * 1024);
+        Hash hash = getRandomTransactionHash();
+        Transaction transaction = getTransaction();
+        cache.write(hash, transaction);
+        transaction.bytes[0] = 1;
+        Transaction cached = cache.get(hash);
+        assertEquals(0, cached.bytes[0]);
+        cached.bytes[0] = 2;
+        assertEquals(0, cache.get(hash).bytes[0]);
+    }
+
+    @Test
+    public void invalidateAndMiss() throws Exception {
+        TransactionCache cache = new TransactionCache(1024 * 1024);
+        Hash hash = getRandomTransactionHash();
+        cache.put(hash, getTransaction(), cache.stamp(hash));
+        cache.invalidate(hash);
+        assertNull(cache.get(hash));
+        assertEquals(1, cache.getMisses());
+
+        cache.put(hash, new Transaction(), cache.stamp(hash));
+        assertEquals("prefilled slots should not be cached", 0, cache.size());
+    }
+
+    @Test
+    public void evictsWhenFull() throws Exception {
+        // room for roughly one transaction per segment
+        TransactionCache cache = new TransactionCache(16 * 3000);
+        for (int i = 0; i < 200; i++) {
+            Hash hash = getRandomTransactionHash();
+            cache.put(hash, getTransaction(), cache.stamp(hash));
+        }
+        assertTrue(cache.size() <= 16);
+        assertTrue(cache.getEvictions() >= 184);
+    }
+
+    @Test
+    public void disabledCacheStoresNothing() throws Exception {
+        TransactionCache cache = new TransactionCache(0);
+        Hash hash = getRandomTransactionHash();
+        cache.put(hash, getTransaction(), cache.stamp(hash));
+        assertNull(cache.get(hash));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,35 @@
+package com.iota.iri.storage.rocksDB;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.rocksdb.CompressionType;
+import org.rocksdb.util.SizeUnit;
+
+public class ColumnFamilyProfileTest {
+    @Test
+    public void overridesShouldOnlyReplaceGivenSettings() throws Exception {
+        ColumnFamilyProfile profile = ColumnFamilyProfile.forFamily("approvee", "write_buffer_size=8192, compression=none");
+        Assert.assertEquals(8192 * SizeUnit.KB, profile.getWriteBufferSize());
+        Assert.assertEquals(CompressionType.NO_COMPRESSION, profile.getCompression());
+        Assert.assertEquals(49, profile.getPrefixLength());
+        Assert.assertEquals(10, profile.getBloomBits());
+    }
+
+    @Test
+    public void emptyOverridesShouldKeepDefaults() throws Exception {
+        ColumnFamilyProfile profile = ColumnFamilyProfile.forFamily("transaction-flags", "");
+        Assert.assertEquals(CompressionType.NO_COMPRESSION, profile.getCompression());
+        Assert.assertTrue(profile.isPinL0());
+        Assert.assertTrue(profile.getBlockCacheShare() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSettingShouldBeRejected() throws Exception {
+        ColumnFamilyProfile.forFamily("transaction", "write_buffer=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFamilyShouldBeRejected() throws Exception {
+        ColumnFamilyProfile.forFamily("spent-addresses", null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Approvee;
+import com.iota.iri.model.Transaction;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
+
+public class ReadReplicaProviderTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private RocksDBPersistenceProvider provider;
+    private ReadReplicaProvider replica;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        provider.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (replica != null) {
+            replica.shutdown();
+        }
+        provider.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void replicaShouldServeWrittenTransactions() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+
+        replica = new ReadReplicaProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath() + "-replica", 1000, Collections.emptyMap(), 0);
+        replica.init();
+        Assert.assertTrue(replica.exists(Transaction.class, transactionViewModel.getHash()));
+        Approvee approvee = (Approvee) replica.get(Approvee.class, transactionViewModel.getTrunkTransactionHash());
+        Assert.assertTrue(approvee.set.contains(transactionViewModel.getHash()));
+
+        TransactionViewModel ignored = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        Assert.assertFalse(replica.saveBatch(ignored.getSaveBatch()));
+        Assert.assertFalse(provider.exists(Transaction.class, ignored.getHash()));
+    }
+}
@@ -1,8 +1,10 @@
 package com.iota.iri.storage.rocksDB;
 
 import com.iota.iri.conf.Configuration;
+import com.iota.iri.model.Approvee;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.Transaction;
+import com.iota.iri.storage.DatabaseStatistics;
 import com.iota.iri.storage.Tangle;
 import com.iota.iri.network.TransactionRequester;
 import com.iota.iri.controllers.TransactionViewModel;
@@ -10,11 +12,176 @@ import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
 import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionTrits;
 
 /**
  * Created by paul on 3/4/17 for iri.
  */
 public class RocksDBPersistenceProviderTest {
-}
\ No newline at end of file
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private RocksDBPersistenceProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        // large enough that nothing is written before the assertions
+        provider.setGroupCommit(1000, 60000, false);
+        provider.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @Test
+    public void pendingWritesShouldBeVisible() throws Exception {
+        int[] trits = getRandomTransactionTrits();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(trits, getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+
+        Hash hash = transactionViewModel.getHash();
+        Assert.assertTrue(provider.exists(Transaction.class, hash));
+        Transaction transaction = (Transaction) provider.get(Transaction.class, hash);
+        Assert.assertArrayEquals(transactionViewModel.getBytes(), transaction.bytes);
+
+        Approvee approvee = (Approvee) provider.get(Approvee.class, transactionViewModel.getTrunkTransactionHash());
+        Assert.assertTrue(approvee.set.contains(hash));
+    }
+
+    @Test
+    public void pendingUpdatesShouldBeVisible() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        Transaction transaction = (Transaction) provider.get(Transaction.class, transactionViewModel.getHash());
+        transaction.snapshot = 42;
+        provider.update(transaction, transactionViewModel.getHash(), "snapshot");
+
+        transaction = (Transaction) provider.get(Transaction.class, transactionViewModel.getHash());
+        Assert.assertEquals(42, transaction.snapshot);
+    }
+
+    @Test
+    public void countShouldFollowSavesAndDeletes() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        Assert.assertEquals(1, provider.count(Transaction.class));
+
+        provider.delete(Transaction.class, transactionViewModel.getHash());
+        Assert.assertEquals(0, provider.count(Transaction.class));
+    }
+
+    @Test
+    public void countShouldSurviveRestart() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        provider.shutdown();
+
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        provider.init();
+        Assert.assertEquals(1, provider.count(Transaction.class));
+    }
+
+    @Test
+    public void statisticsShouldCoverEveryColumnFamily() throws Exception {
+        provider.shutdown();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        provider.setStatisticsEnabled(true);
+        provider.init();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+
+        DatabaseStatistics statistics = provider.getStatistics();
+        Assert.assertEquals(11, statistics.getColumnFamilies().size());
+        Assert.assertTrue(statistics.getColumnFamilies().get("transaction").get("rocksdb.cur-size-all-mem-tables") > 0);
+        Assert.assertTrue(statistics.getTicker("BYTES_WRITTEN") > 0);
+        Assert.assertTrue(statistics.getHistograms().containsKey("DB_WRITE"));
+    }
+
+    @Test
+    public void scanShouldPassEveryTransaction() throws Exception {
+        Set<Hash> hashes = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+            provider.saveBatch(transactionViewModel.getSaveBatch());
+            hashes.add(transactionViewModel.getHash());
+        }
+
+        Set<Hash> scanned = new HashSet<>();
+        Assert.assertTrue(provider.scan(Transaction.class, Hash.class, 2, 2, chunk -> {
+            Assert.assertTrue(chunk.size() <= 2);
+            synchronized (scanned) {
+                chunk.forEach(pair -> scanned.add((Hash) pair.low));
+            }
+        }));
+        Assert.assertEquals(hashes, scanned);
+        Assert.assertFalse(provider.scan(Approvee.class, Hash.class, 2, 2, chunk -> {}));
+    }
+
+    @Test
+    public void clearedColumnShouldAcceptNewWrites() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+
+        provider.clear(Transaction.class);
+        provider.clear(Approvee.class);
+        Assert.assertFalse(provider.exists(Transaction.class, transactionViewModel.getHash()));
+        Assert.assertFalse(provider.exists(Approvee.class, transactionViewModel.getTrunkTransactionHash()));
+        Assert.assertEquals(0, provider.count(Transaction.class));
+
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        Assert.assertTrue(provider.exists(Transaction.class, transactionViewModel.getHash()));
+        Assert.assertEquals(1, provider.count(Transaction.class));
+    }
+
+    @Test
+    public void archivedTransactionShouldRemainReadable() throws Exception {
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+
+        Assert.assertEquals(1, provider.archive(Transaction.class, Collections.singletonList(transactionViewModel.getHash())));
+        Assert.assertTrue(provider.isArchived(Transaction.class, transactionViewModel.getHash()));
+        Assert.assertTrue(provider.exists(Transaction.class, transactionViewModel.getHash()));
+        Assert.assertEquals(1, provider.count(Transaction.class));
+        Transaction transaction = (Transaction) provider.get(Transaction.class, transactionViewModel.getHash());
+        Assert.assertArrayEquals(transactionViewModel.getBytes(), transaction.bytes);
+        Transaction batched = (Transaction) provider.getBatch(Transaction.class,
+            Collections.singletonList(transactionViewModel.getHash())).get(transactionViewModel.getHash());
+        Assert.assertArrayEquals(transactionViewModel.getBytes(), batched.bytes);
+
+        provider.delete(Transaction.class, transactionViewModel.getHash());
+        Assert.assertFalse(provider.exists(Transaction.class, transactionViewModel.getHash()));
+        Assert.assertEquals(0, provider.count(Transaction.class));
+    }
+
+    @Test
+    public void shortHashShouldFindTransactionsWrittenWithoutPrefixExtractor() throws Exception {
+        provider.shutdown();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000, Collections.singletonMap("transaction", "prefix_length=0"));
+        provider.init();
+        TransactionViewModel transactionViewModel = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        provider.saveBatch(transactionViewModel.getSaveBatch());
+        provider.shutdown();
+
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        provider.init();
+        byte[] shortHash = Arrays.copyOf(transactionViewModel.getHash().bytes(), 46);
+        Assert.assertEquals(transactionViewModel.getHash(), provider.firstKeyStartingWith(Transaction.class, shortHash));
+    }
+}
@@ -0,0 +1,99 @@
+package com.iota.iri.storage.rocksDB;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.hash.SpongeFactory;
+import com.iota.iri.model.Address;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.utils.Converter;
+import com.iota.iri.utils.Pair;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Random;
+
+public class TransactionImporterTest {
+    private final TemporaryFolder dbFolder = new TemporaryFolder();
+    private final TemporaryFolder logFolder = new TemporaryFolder();
+    private final TemporaryFolder dumpFolder = new TemporaryFolder();
+    private RocksDBPersistenceProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFolder.create();
+        logFolder.create();
+        dumpFolder.create();
+        provider = new RocksDBPersistenceProvider(dbFolder.getRoot().getAbsolutePath(),
+                logFolder.getRoot().getAbsolutePath(), 1000);
+        provider.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+        dumpFolder.delete();
+    }
+
+    @Test
+    public void dumpShouldBeImported() throws Exception {
+        int[] first = transactionTrits(), second = transactionTrits();
+        File dump = dumpFolder.newFile("dump.txt");
+        try (PrintWriter writer = new PrintWriter(dump)) {
+            writer.println(Converter.trytes(first));
+            writer.println("NOT9A9TRANSACTION");
+            writer.println(Converter.trytes(second));
+            writer.println(Converter.trytes(first));
+        }
+
+        Assert.assertEquals(2, new TransactionImporter(provider, 0).importDump(dump.toPath()));
+        Assert.assertEquals(2, provider.count(Transaction.class));
+        Hash hash = Hash.calculate(first, 0, first.length, SpongeFactory.create(SpongeFactory.Mode.CURLP81));
+        Assert.assertTrue(provider.exists(Transaction.class, hash));
+        TransactionViewModel transactionViewModel = new TransactionViewModel(first, hash);
+        Address address = (Address) provider.get(Address.class, transactionViewModel.getAddressHash());
+        Assert.assertTrue(address.set.contains(hash));
+    }
+
+    @Test
+    public void storedTransactionsShouldKeepTheirFlags() throws Exception {
+        int[] stored = transactionTrits(), added = transactionTrits();
+        Hash hash = Hash.calculate(stored, 0, stored.length, SpongeFactory.create(SpongeFactory.Mode.CURLP81));
+        List<Pair<Indexable, Persistable>> saveBatch = new TransactionViewModel(stored, hash).getSaveBatch();
+        for (Pair<Indexable, Persistable> entry : saveBatch) {
+            if (entry.hi instanceof Transaction) {
+                ((Transaction) entry.hi).solid = true;
+                ((Transaction) entry.hi).snapshot = 5;
+            }
+        }
+        provider.saveBatch(saveBatch);
+        File dump = dumpFolder.newFile("dump.txt");
+        try (PrintWriter writer = new PrintWriter(dump)) {
+            writer.println(Converter.trytes(stored));
+            writer.println(Converter.trytes(added));
+        }
+
+        Assert.assertEquals(1, new TransactionImporter(provider, 0).importDump(dump.toPath()));
+        Assert.assertEquals(2, provider.count(Transaction.class));
+        Transaction transaction = (Transaction) provider.get(Transaction.class, hash);
+        Assert.assertTrue(transaction.solid);
+        Assert.assertEquals(5, transaction.snapshot);
+    }
+
+    private static int[] transactionTrits() {
+        Random random = new Random();
+        int[] trits = new int[TransactionViewModel.TRINARY_SIZE];
+        for (int i = 0; i < TransactionViewModel.SIGNATURE_MESSAGE_FRAGMENT_TRINARY_SIZE; i++) {
+            trits[i] = random.nextInt(3) - 1;
+        }
+        Converter.copyTrits(System.currentTimeMillis() / 1000, trits, TransactionViewModel.TIMESTAMP_TRINARY_OFFSET,
+                TransactionViewModel.TIMESTAMP_TRINARY_SIZE);
+        return trits;
+    }
+}
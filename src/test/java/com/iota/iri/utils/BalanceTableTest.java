@@ -0,0 +1,64 @@
+package com.iota.iri.utils;
+
+import com.iota.iri.model.Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class BalanceTableTest {
+
+    private static void assertSameBalances(Map<Hash, Long> expected, BalanceTable table) {
+        Assert.assertEquals(expected.size(), table.size());
+        Assert.assertEquals(expected, new HashMap<>(table));
+        for (Map.Entry<Hash, Long> entry : expected.entrySet()) {
+            Assert.assertEquals((long) entry.getValue(), table.getBalance(entry.getKey(), -1));
+        }
+    }
+
+    @Test
+    public void tableShouldMatchHashMap() {
+        for (boolean direct : new boolean[]{false, true}) {
+            Random random = new Random(direct ? 1 : 2);
+            BalanceTable table = new BalanceTable(0, direct);
+            Map<Hash, Long> expected = new HashMap<>();
+            List<Hash> addresses = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                addresses.add(getRandomTransactionHash());
+            }
+            for (int i = 0; i < 20000; i++) {
+                Hash address = addresses.get(random.nextInt(addresses.size()));
+                long delta = random.nextInt(1000) - 500;
+                switch (random.nextInt(3)) {
+                    case 0:
+                        Assert.assertEquals(expected.put(address, delta), table.put(address, delta));
+                        break;
+                    case 1:
+                        Assert.assertEquals(expected.remove(address), table.remove(address));
+                        break;
+                    default:
+                        Assert.assertEquals((long) expected.merge(address, delta, Long::sum), table.add(address, delta));
+                }
+            }
+            assertSameBalances(expected, table);
+            assertSameBalances(expected, table.copy());
+        }
+    }
+
+    @Test
+    public void iteratorShouldRemoveEntries() {
+        BalanceTable table = new BalanceTable(10, true);
+        Map<Hash, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            Hash address = getRandomTransactionHash();
+            table.put(address, (long) i % 3);
+            expected.put(address, (long) i % 3);
+        }
+        table.entrySet().removeIf(entry -> entry.getValue() == 0);
+        expected.entrySet().removeIf(entry -> entry.getValue() == 0);
+        assertSameBalances(expected, table);
+        Assert.assertNull(table.get(getRandomTransactionHash()));
+    }
+}
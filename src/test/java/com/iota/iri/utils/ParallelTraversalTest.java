@@ -0,0 +1,138 @@
+package com.iota.iri.utils;
+
+import com.iota.iri.model.Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.getRandomTransactionHash;
+
+public class ParallelTraversalTest {
+
+    /**
+     * @return the parents of each transaction of a random subtangle of {@code depth} layers of {@code width}
+     * transactions, each approving two transactions of the layer below
+     */
+    private static Map<Hash, Hash[]> randomSubtangle(int depth, int width, Random random) {
+        Map<Hash, Hash[]> parents = new HashMap<>();
+        List<Hash> below = Collections.singletonList(Hash.NULL_HASH);
+        for (int i = 0; i < depth; i++) {
+            List<Hash> layer = new ArrayList<>();
+            for (int j = 0; j < width; j++) {
+                Hash hash = getRandomTransactionHash();
+                parents.put(hash, new Hash[]{below.get(random.nextInt(below.size())), below.get(random.nextInt(below.size()))});
+                layer.add(hash);
+            }
+            below = layer;
+        }
+        return parents;
+    }
+
+    /**
+     * @return the transactions of the top layer of {@code parents}
+     */
+    private static List<Hash> tips(Map<Hash, Hash[]> parents) {
+        Set<Hash> approved = new HashSet<>();
+        parents.values().forEach(hashes -> approved.addAll(Arrays.asList(hashes)));
+        List<Hash> tips = new ArrayList<>();
+        for (Hash hash : parents.keySet()) {
+            if (!approved.contains(hash)) {
+                tips.add(hash);
+            }
+        }
+        return tips;
+    }
+
+    /**
+     * @return the chunks visited by a walk through {@code parents}
+     */
+    private static List<Set<Hash>> chunks(ParallelTraversal traversal, Map<Hash, Hash[]> parents) throws Exception {
+        List<Set<Hash>> levels = new ArrayList<>();
+        traversal.walk(tips(parents), new HashSet<>(Collections.singleton(Hash.NULL_HASH)), (level, next) -> {
+            synchronized (levels) {
+                levels.add(new HashSet<>(level));
+            }
+            for (Hash hash : level) {
+                next.addAll(Arrays.asList(parents.get(hash)));
+            }
+            return true;
+        });
+        return levels;
+    }
+
+    @Test
+    public void walkShouldNotDependOnParallelism() throws Exception {
+        Map<Hash, Hash[]> parents = randomSubtangle(10, 1000, new Random(1));
+        ParallelTraversal sequential = new ParallelTraversal(1);
+        ParallelTraversal parallel = new ParallelTraversal(4);
+        try {
+            Set<Hash> expected = new HashSet<>();
+            List<Set<Hash>> levels = chunks(sequential, parents);
+            levels.forEach(expected::addAll);
+            Assert.assertEquals(parents.keySet(), expected);
+            List<Set<Hash>> chunks = chunks(parallel, parents);
+            Assert.assertTrue("levels should be split", chunks.size() > levels.size());
+
+            Set<Hash> visited = ConcurrentHashMap.newKeySet();
+            parallel.walk(tips(parents), new HashSet<>(Collections.singleton(Hash.NULL_HASH)),
+                    (level, next) -> {
+                for (Hash hash : level) {
+                    Assert.assertTrue("visited twice", visited.add(hash));
+                    next.addAll(Arrays.asList(parents.get(hash)));
+                }
+                return true;
+            });
+            Assert.assertEquals(expected, visited);
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void visitorShouldEndWalk() throws Exception {
+        Map<Hash, Hash[]> parents = randomSubtangle(10, 1000, new Random(2));
+        ParallelTraversal parallel = new ParallelTraversal(4);
+        try {
+            Hash stop = tips(parents).stream().map(tip -> parents.get(tip)[0]).filter(parents::containsKey)
+                    .map(parent -> parents.get(parent)[0]).filter(parents::containsKey).findFirst().get();
+            Set<Hash> visited = new HashSet<>(Collections.singleton(Hash.NULL_HASH));
+            boolean completed = parallel.walk(tips(parents), visited, (level, next) -> {
+                for (Hash hash : level) {
+                    if (hash.equals(stop)) {
+                        return false;
+                    }
+                    next.addAll(Arrays.asList(parents.get(hash)));
+                }
+                return true;
+            });
+            Assert.assertFalse(completed);
+            Assert.assertTrue(visited.contains(stop));
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void visitorExceptionShouldBeRethrown() throws Exception {
+        Map<Hash, Hash[]> parents = randomSubtangle(10, 1000, new Random(3));
+        ParallelTraversal parallel = new ParallelTraversal(4);
+        try {
+            parallel.walk(tips(parents), new HashSet<>(), (level, next) -> {
+                if (level.size() > 100) {
+                    throw new IllegalStateException();
+                }
+                for (Hash hash : level) {
+                    Hash[] hashParents = parents.get(hash);
+                    if (hashParents != null) {
+                        next.addAll(Arrays.asList(hashParents));
+                    }
+                }
+                return true;
+            });
+        } finally {
+            parallel.shutdown();
+        }
+    }
+}